@@ -0,0 +1,145 @@
+package textrank;
+
+/**
+ * An article after sentence detection, punctuation stripping, tokenization and
+ * lowercasing, produced once by TextRank.analyze and shared by the sentence and
+ * keyword rankers. Every distinct token is numbered by the article's TokenDictionary.
+ */
+public final class AnalyzedText {
+    private final String[] sentences;
+    private final String[][] sentenceTokens;
+    private final int[][] sentenceTerms;
+    private final int[] tokenIds;
+    private final int[] tokenOffsets;
+    private final int[] sentenceOffsets;
+    private final TokenDictionary dictionary;
+    private final boolean[] stopwords;
+    private final boolean[] extendedStopwords;
+
+    /**
+     * @param sentences the detected sentences, as they appear in the text
+     * @param sentenceTokens lowercased tokens of each sentence, without punctuation
+     * @param sentenceTerms sorted token ids of each sentence
+     * @param tokenIds ids of all tokens in reading order
+     * @param tokenOffsets for every position of tokenIds, where that token starts in its sentence as written
+     * @param dictionary dictionary every token has been interned into
+     * @param stopwords stopwords[id] is true if that token is on the stopword list
+     * @param extendedStopwords extendedStopwords[id] is true if that token is on the extended stopword list
+     */
+    AnalyzedText(String[] sentences, String[][] sentenceTokens, int[][] sentenceTerms, int[] tokenIds, int[] tokenOffsets,
+                 TokenDictionary dictionary, boolean[] stopwords, boolean[] extendedStopwords) {
+        this.sentences = sentences;
+        this.sentenceTokens = sentenceTokens;
+        this.sentenceTerms = sentenceTerms;
+        this.tokenIds = tokenIds;
+        this.tokenOffsets = tokenOffsets;
+        this.dictionary = dictionary;
+        this.stopwords = stopwords;
+        this.extendedStopwords = extendedStopwords;
+        //Sentence i covers tokenIds[sentenceOffsets[i]] up to tokenIds[sentenceOffsets[i+1]]
+        this.sentenceOffsets = new int[sentences.length + 1];
+        for (int i = 0; i < sentences.length; i++) {
+            sentenceOffsets[i + 1] = sentenceOffsets[i] + sentenceTokens[i].length;
+        }
+    }
+
+    /**
+     * @return number of sentences in the article
+     */
+    public int getSentenceCount() {
+        return sentences.length;
+    }
+
+    /**
+     * @param i index of a sentence
+     * @return the sentence as it appears in the article
+     */
+    public String getSentence(int i) {
+        return sentences[i];
+    }
+
+    /**
+     * @param i index of a sentence
+     * @return lowercased tokens of the sentence, without punctuation
+     */
+    public String[] getSentenceTokens(int i) {
+        return sentenceTokens[i];
+    }
+
+    /**
+     * @return number of tokens in the article
+     */
+    public int getTokenCount() {
+        return tokenIds.length;
+    }
+
+    /**
+     * @return number of distinct tokens in the article
+     */
+    public int getVocabularySize() {
+        return dictionary.size();
+    }
+
+    /**
+     * @param id a token id
+     * @return the token with that id
+     */
+    public String getToken(int id) {
+        return dictionary.token(id);
+    }
+
+    /**
+     * @param i index of a sentence
+     * @return sorted token ids of the sentence, duplicates included
+     */
+    int[] getSentenceTerms(int i) {
+        return sentenceTerms[i];
+    }
+
+    /**
+     * @return ids of all tokens of the article in reading order
+     */
+    int[] getTokenIds() {
+        return tokenIds;
+    }
+
+    /**
+     * @param position a position in getTokenIds()
+     * @return char offset in getSentence() of the first char the token was made from, or
+     *         the sentence length if it couldn't be found
+     */
+    int getTokenOffset(int position) {
+        return tokenOffsets[position];
+    }
+
+    /**
+     * @param i index of a sentence
+     * @return position in getTokenIds() of the sentence's first token
+     */
+    int getSentenceStart(int i) {
+        return sentenceOffsets[i];
+    }
+
+    /**
+     * @param i index of a sentence
+     * @return position in getTokenIds() just after the sentence's last token
+     */
+    int getSentenceEnd(int i) {
+        return sentenceOffsets[i + 1];
+    }
+
+    /**
+     * @param id a token id
+     * @return whether the token is on the extended stopword list used for keywords
+     */
+    boolean isExtendedStopword(int id) {
+        return extendedStopwords[id];
+    }
+
+    /**
+     * @return the sentences as token ids, for the sentence similarity functions
+     */
+    SentenceTerms toSentenceTerms() {
+        return new SentenceTerms(sentenceTerms, dictionary.size(), stopwords);
+    }
+}
@@ -0,0 +1,90 @@
+package textrank;
+
+/**
+ * Okapi BM25 between sentences, treating every sentence of the article as a document.
+ * BM25 is asymmetric, so the edge weight is the mean of scoring each sentence as the
+ * query against the other. Stopwords are ignored.
+ */
+public class Bm25Similarity implements SentenceSimilarity {
+    private final double k1;
+    private final double b;
+
+    /**
+     * Uses the customary parameters k1 = 1.2 and b = 0.75
+     */
+    public Bm25Similarity() {
+        this(1.2, 0.75);
+    }
+
+    /**
+     * @param k1 term frequency saturation
+     * @param b length normalization, between 0 and 1
+     */
+    public Bm25Similarity(double k1, double b) {
+        if (k1 < 0 || b < 0 || b > 1) {
+            throw new IllegalArgumentException("Invalid BM25 parameters k1=" + k1 + ", b=" + b);
+        }
+        this.k1 = k1;
+        this.b = b;
+    }
+
+    @Override
+    public Scorer prepare(SentenceTerms sentences) {
+        final int n = sentences.getSentenceCount();
+        final int[][] terms = new int[n][];
+        double totalLength = 0;
+        for (int i = 0; i < n; i++) {
+            terms[i] = sentences.getContentTerms(i);
+            totalLength += terms[i].length;
+        }
+        int[] df = sentences.documentFrequencies(terms);
+        final double[] idf = new double[df.length];
+        for (int t = 0; t < df.length; t++) {
+            //The "+1" variant of the idf, which never goes negative for common terms
+            idf[t] = Math.log(1 + (n - df[t] + 0.5) / (df[t] + 0.5));
+        }
+        final double averageLength = n == 0 ? 0 : totalLength / n;
+        return new Scorer() {
+            @Override
+            public int[] terms(int sentence) {
+                return terms[sentence];
+            }
+
+            @Override
+            public double similarity(int i, int j) {
+                return (score(terms[i], terms[j]) + score(terms[j], terms[i])) / 2;
+            }
+
+            /**
+             * BM25 of a query sentence against a document sentence; both are sorted id arrays
+             */
+            private double score(int[] query, int[] document) {
+                double lengthNorm = k1 * (1 - b + b * document.length / averageLength);
+                double score = 0;
+                int q = 0;
+                int d = 0;
+                while (q < query.length && d < document.length) {
+                    int a = query[q];
+                    int c = document[d];
+                    if (a < c) {
+                        q++;
+                    } else if (a > c) {
+                        d++;
+                    } else {
+                        //Each distinct query term counts once, weighted by its frequency in the document
+                        int tf = 0;
+                        while (d < document.length && document[d] == a) {
+                            tf++;
+                            d++;
+                        }
+                        while (q < query.length && query[q] == a) {
+                            q++;
+                        }
+                        score += idf[a] * tf * (k1 + 1) / (tf + lengthNorm);
+                    }
+                }
+                return score;
+            }
+        };
+    }
+}
@@ -0,0 +1,60 @@
+package textrank;
+
+/**
+ * Describes when the TextRank power iteration stops: once the residual (the change
+ * in scores over one sweep, measured with the chosen norm) drops to the tolerance,
+ * or once the iteration cap is reached, whichever happens first.
+ */
+public final class ConvergencePolicy {
+
+    /**
+     * Norm used to measure the residual of a sweep
+     */
+    public enum Norm {
+        /** Sum of the absolute score changes */
+        L1,
+        /** Largest absolute score change */
+        LINF
+    }
+
+    /**
+     * Default policy: stop when no score moves by more than 0.0001, or after 100 sweeps.
+     */
+    public static final ConvergencePolicy DEFAULT = new ConvergencePolicy(Norm.LINF, 0.0001, 100);
+
+    private final Norm norm;
+    private final double tolerance;
+    private final int maxIterations;
+
+    /**
+     * @param norm norm used to measure the residual
+     * @param tolerance residual at or below which scores are considered converged
+     * @param maxIterations hard cap on the number of sweeps
+     */
+    public ConvergencePolicy(Norm norm, double tolerance, int maxIterations) {
+        if (norm == null) {
+            throw new IllegalArgumentException("norm must not be null");
+        }
+        if (!(tolerance >= 0)) {
+            throw new IllegalArgumentException("tolerance must be non-negative: " + tolerance);
+        }
+        if (maxIterations < 1) {
+            throw new IllegalArgumentException("maxIterations must be positive: " + maxIterations);
+        }
+        this.norm = norm;
+        this.tolerance = tolerance;
+        this.maxIterations = maxIterations;
+    }
+
+    public Norm getNorm() {
+        return norm;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+}
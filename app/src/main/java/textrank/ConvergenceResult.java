@@ -0,0 +1,63 @@
+package textrank;
+
+/**
+ * Outcome of one TextRank power iteration: which solver ran, how many sweeps it took,
+ * the residual of the last sweep and how long the whole iteration ran.
+ */
+public final class ConvergenceResult {
+    private final Solver solver;
+    private final int iterations;
+    private final double residual;
+    private final long elapsedNanos;
+    private final boolean converged;
+
+    ConvergenceResult(Solver solver, int iterations, double residual, long elapsedNanos, boolean converged) {
+        this.solver = solver;
+        this.iterations = iterations;
+        this.residual = residual;
+        this.elapsedNanos = elapsedNanos;
+        this.converged = converged;
+    }
+
+    /**
+     * @return the update order that was used
+     */
+    public Solver getSolver() {
+        return solver;
+    }
+
+    /**
+     * @return number of sweeps that were run
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * @return residual of the final sweep
+     */
+    public double getResidual() {
+        return residual;
+    }
+
+    /**
+     * @return wall time spent iterating, in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return true if the residual reached the tolerance, false if the iteration cap
+     * was hit or the scores stopped being finite
+     */
+    public boolean isConverged() {
+        return converged;
+    }
+
+    @Override
+    public String toString() {
+        return solver + ": " + iterations + " iterations, residual " + residual + ", "
+                + (elapsedNanos / 1000) + "us" + (converged ? "" : " (not converged)");
+    }
+}
@@ -0,0 +1,52 @@
+package textrank;
+
+/**
+ * Builds the keyword co-occurrence graph. Two distinct vertices are joined when they
+ * appear fewer than window positions apart in the token sequence, and the edge weight
+ * is the number of times that happens. Counts are accumulated in a primitive hash map
+ * keyed on the packed vertex pair, so no per-edge objects are created.
+ */
+final class CooccurrenceGraphBuilder {
+    static final int MIN_WINDOW = 2;
+    static final int MAX_WINDOW = 10;
+
+    private CooccurrenceGraphBuilder() {
+    }
+
+    /**
+     * @param sequence vertex ids in reading order, with filtered tokens already removed
+     * @param vertexCount number of distinct vertex ids
+     * @param window co-occurrence window size, between MIN_WINDOW and MAX_WINDOW
+     * @return the weighted co-occurrence graph
+     */
+    static CsrGraph build(int[] sequence, int vertexCount, int window) {
+        LongIntHashMap counts = new LongIntHashMap(sequence.length);
+        for (int i = 0; i < sequence.length; i++) {
+            int cur = sequence[i];
+            //Pair each token with the ones following it inside the window, up to the last token
+            int end = Math.min(sequence.length, i + window);
+            for (int j = i + 1; j < end; j++) {
+                int other = sequence[j];
+                if (cur != other) {
+                    counts.add(pack(cur, other), 1);
+                }
+            }
+        }
+        //Sorted keys give sorted neighbor lists and a deterministic graph
+        long[] pairs = counts.sortedKeys();
+        CsrGraph.Builder builder = new CsrGraph.Builder(vertexCount);
+        for (long pair : pairs) {
+            builder.addEdge((int) (pair >>> 32), (int) pair, counts.get(pair));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Packs an unordered pair of non-negative ints into a long, smaller id in the high half
+     */
+    static long pack(int a, int b) {
+        int low = Math.min(a, b);
+        int high = Math.max(a, b);
+        return ((long) low << 32) | high;
+    }
+}
@@ -0,0 +1,157 @@
+package textrank;
+
+import java.util.Arrays;
+
+/**
+ * An undirected, weighted graph stored in compressed-sparse-row form.
+ * Vertices are the ints 0..vertexCount-1. The neighbors of vertex i are found at
+ * neighbors[offsets[i]] up to (but not including) neighbors[offsets[i+1]], and
+ * weights holds the edge weight for each of those entries.
+ * Every undirected edge is stored once in each direction, and the weighted degree
+ * (out-weight sum) of every vertex is computed once when the graph is built.
+ */
+final class CsrGraph {
+    final int vertexCount;
+    final int[] offsets;
+    final int[] neighbors;
+    final double[] weights;
+    final double[] outWeights;
+
+    private CsrGraph(int vertexCount, int[] offsets, int[] neighbors, double[] weights, double[] outWeights) {
+        this.vertexCount = vertexCount;
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        this.weights = weights;
+        this.outWeights = outWeights;
+    }
+
+    /**
+     * Number of undirected edges in the graph
+     * @return edge count
+     */
+    int edgeCount() {
+        return neighbors.length / 2;
+    }
+
+    /**
+     * Sum of the weights of the edges incident to a vertex
+     * @param v the vertex
+     * @return weighted degree of v
+     */
+    double weightedDegree(int v) {
+        return outWeights[v];
+    }
+
+    /**
+     * Collects edges (each undirected edge added once) into growable primitive
+     * arrays and then lays them out as a CsrGraph. A Builder is only an edge list
+     * until build() is called, so several can be filled independently and merged.
+     */
+    static final class Builder {
+        private int vertexCount;
+        private int[] sources = new int[16];
+        private int[] targets = new int[16];
+        private double[] edgeWeights = new double[16];
+        private int size;
+
+        Builder(int vertexCount) {
+            this.vertexCount = vertexCount;
+        }
+
+        /**
+         * Adds the undirected edge {i, j}. Callers are responsible for not adding an edge twice.
+         * @param i first vertex
+         * @param j second vertex
+         * @param weight weight of the edge
+         */
+        void addEdge(int i, int j, double weight) {
+            ensureCapacity(size + 1);
+            sources[size] = i;
+            targets[size] = j;
+            edgeWeights[size] = weight;
+            size++;
+        }
+
+        /**
+         * Makes room for more vertices, so a builder can grow with its graph
+         * @param vertexCount the new number of vertices, at least the current one
+         */
+        void setVertexCount(int vertexCount) {
+            if (vertexCount < this.vertexCount) {
+                throw new IllegalArgumentException("Vertices can't be removed: " + vertexCount + " < " + this.vertexCount);
+            }
+            this.vertexCount = vertexCount;
+        }
+
+        /**
+         * Replaces the weight of every edge with scorer.similarity(i, j), dropping edges
+         * whose new weight is not positive. The order of the remaining edges is kept.
+         * @param scorer scores pairs of the graph's vertices
+         */
+        void reweight(SentenceSimilarity.Scorer scorer) {
+            int kept = 0;
+            for (int e = 0; e < size; e++) {
+                double weight = scorer.similarity(sources[e], targets[e]);
+                if (weight > 0.0) {
+                    sources[kept] = sources[e];
+                    targets[kept] = targets[e];
+                    edgeWeights[kept++] = weight;
+                }
+            }
+            size = kept;
+        }
+
+        /**
+         * Appends every edge of another builder, keeping its order.
+         * @param other builder whose edges are copied
+         */
+        void addAll(Builder other) {
+            ensureCapacity(size + other.size);
+            System.arraycopy(other.sources, 0, sources, size, other.size);
+            System.arraycopy(other.targets, 0, targets, size, other.size);
+            System.arraycopy(other.edgeWeights, 0, edgeWeights, size, other.size);
+            size += other.size;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > sources.length) {
+                capacity = Math.max(capacity, sources.length * 2);
+                sources = Arrays.copyOf(sources, capacity);
+                targets = Arrays.copyOf(targets, capacity);
+                edgeWeights = Arrays.copyOf(edgeWeights, capacity);
+            }
+        }
+
+        /**
+         * Lays out the collected edges. Neighbor lists come out sorted by vertex id
+         * as long as edges were added in increasing (i, j) order.
+         * @return the finished graph
+         */
+        CsrGraph build() {
+            int[] offsets = new int[vertexCount + 1];
+            for (int e = 0; e < size; e++) {
+                offsets[sources[e] + 1]++;
+                offsets[targets[e] + 1]++;
+            }
+            for (int v = 0; v < vertexCount; v++) {
+                offsets[v + 1] += offsets[v];
+            }
+            int[] neighbors = new int[offsets[vertexCount]];
+            double[] weights = new double[offsets[vertexCount]];
+            double[] outWeights = new double[vertexCount];
+            int[] next = Arrays.copyOf(offsets, vertexCount);
+            for (int e = 0; e < size; e++) {
+                int i = sources[e];
+                int j = targets[e];
+                double w = edgeWeights[e];
+                neighbors[next[i]] = j;
+                weights[next[i]++] = w;
+                neighbors[next[j]] = i;
+                weights[next[j]++] = w;
+                outWeights[i] += w;
+                outWeights[j] += w;
+            }
+            return new CsrGraph(vertexCount, offsets, neighbors, weights, outWeights);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package textrank;
+
+/**
+ * How the sentence similarity graph is constructed.
+ */
+public enum GraphMode {
+    /**
+     * Score every pair of sentences. Can run in parallel (see TextRank.setGraphExecutor).
+     */
+    ALL_PAIRS,
+    /**
+     * Build a token to sentence postings index and only score pairs that share at
+     * least one token, accumulating their overlap counts straight from the postings.
+     * Produces the same graph as ALL_PAIRS, in time proportional to the actual overlap.
+     */
+    INVERTED_INDEX
+}
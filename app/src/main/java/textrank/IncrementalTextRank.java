@@ -0,0 +1,236 @@
+package textrank;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Sentence ranking for an article that arrives one paragraph at a time. Each paragraph's
+ * sentences are interned into the same dictionary and appended to one SentenceTerms. When
+ * a ranking is asked for, the edges from the new sentences to every earlier sentence are
+ * found through a postings index that persists between paragraphs and appended to one
+ * edge builder, and the power iteration restarts from the previous scores. A provisional
+ * summary can be shown long before the whole article has been read, and the summary of
+ * the last paragraph is the final one: every ranking uses the graph a batch ranking of
+ * the same sentences would build.
+ *
+ * With OverlapSimilarity an edge weight only depends on its two sentences, so one scorer
+ * serves the whole stream and existing edges are never touched again. Similarities that
+ * use article statistics (Bm25Similarity, TfIdfCosineSimilarity) are prepared again for
+ * each ranking and every existing edge is rescored, which costs O(edges) per ranking.
+ *
+ * An instance is meant to be fed and queried from one thread.
+ */
+public final class IncrementalTextRank {
+    private final double PROBABILITY = 0.85;
+    private final double DEFAULT_MMR_LAMBDA = 0.7;
+    private final TextRank textRank;
+    private final TextRankModels models;
+    private final SentenceSimilarity similarity;
+    private final ConvergencePolicy convergencePolicy;
+    private final Solver solver;
+    private final TokenizerMode tokenizerMode;
+    private final TokenDictionary dictionary = new TokenDictionary();
+    private final InvertedIndexGraphBuilder index = new InvertedIndexGraphBuilder();
+    private final ArrayList<String> sentences = new ArrayList<String>();
+    private final ArrayList<String[]> sentenceTokens = new ArrayList<String[]>();
+    private int[][] sentenceTerms = new int[16][];
+    private final SentenceTerms terms = new SentenceTerms();
+    private int[] tokenIds = new int[256];
+    private int[] tokenOffsets = new int[256];
+    private int tokenCount;
+    private int flaggedTokenCount;
+    private boolean[] stopwords = new boolean[256];
+    private boolean[] extendedStopwords = new boolean[256];
+    private final CsrGraph.Builder edges = new CsrGraph.Builder(0);
+    private SentenceSimilarity.Scorer scorer;
+    private int linkedSentenceCount;
+    private CsrGraph graph;
+    private double[] scores = new double[0];
+    private int rankedSentenceCount = -1;
+    private int paragraphCount;
+    private ConvergenceResult lastConvergence;
+    private boolean finished;
+
+    IncrementalTextRank(TextRank textRank, TextRankModels models, SentenceSimilarity similarity,
+                        ConvergencePolicy convergencePolicy, Solver solver, TokenizerMode tokenizerMode) {
+        this.textRank = textRank;
+        this.models = models;
+        this.similarity = similarity;
+        this.convergencePolicy = convergencePolicy;
+        this.solver = solver;
+        this.tokenizerMode = tokenizerMode;
+    }
+
+    /**
+     * Detects and tokenizes the sentences of a paragraph. They are linked into the graph
+     * by the next ranking.
+     * @param paragraph the next paragraph of the article
+     */
+    public void addParagraph(String paragraph) {
+        if (finished) {
+            throw new IllegalStateException("Paragraphs can't be added after toAnalyzedText()");
+        }
+        String[] detected = models.sentenceDetector().sentDetect(paragraph);
+        int first = sentences.size();
+        for (String sentence : detected) {
+            int[] ids = TextRank.internTokens(tokenizerMode, models, sentence, dictionary);
+            int i = sentences.size();
+            sentences.add(sentence);
+            sentenceTokens.add(dictionary.tokens(ids));
+            if (i == sentenceTerms.length) {
+                sentenceTerms = Arrays.copyOf(sentenceTerms, i * 2);
+            }
+            if (tokenCount + ids.length > tokenIds.length) {
+                int capacity = Math.max(tokenCount + ids.length, tokenIds.length * 2);
+                tokenIds = Arrays.copyOf(tokenIds, capacity);
+                tokenOffsets = Arrays.copyOf(tokenOffsets, capacity);
+            }
+            System.arraycopy(ids, 0, tokenIds, tokenCount, ids.length);
+            TextRank.alignTokens(sentence, sentenceTokens.get(i), tokenOffsets, tokenCount);
+            tokenCount += ids.length;
+            Arrays.sort(ids);
+            sentenceTerms[i] = ids;
+        }
+        flagNewTokens();
+        for (int j = first; j < sentences.size(); j++) {
+            terms.add(sentenceTerms[j], dictionary.size(), stopwords);
+        }
+        paragraphCount++;
+    }
+
+    /**
+     * Looks up both stoplists once for each token id assigned since the last paragraph
+     */
+    private void flagNewTokens() {
+        int size = dictionary.size();
+        if (size > stopwords.length) {
+            int capacity = Math.max(size, stopwords.length * 2);
+            stopwords = Arrays.copyOf(stopwords, capacity);
+            extendedStopwords = Arrays.copyOf(extendedStopwords, capacity);
+        }
+        for (int id = flaggedTokenCount; id < size; id++) {
+            String token = dictionary.token(id);
+            stopwords[id] = models.stopwords().contains(token);
+            extendedStopwords[id] = models.extendedStopwords().contains(token);
+        }
+        flaggedTokenCount = size;
+    }
+
+    /**
+     * Adds the edges between the sentences that arrived since the last ranking and every
+     * sentence before them. A scorer that uses article statistics is prepared again over
+     * all sentences first and the existing edges are rescored with it.
+     */
+    private void link() {
+        int sentenceCount = sentences.size();
+        if (scorer == null || scorer.usesArticleStatistics()) {
+            scorer = similarity.prepare(terms);
+            //Only pairs that share a term have an edge, and that doesn't change; only weights do
+            edges.reweight(scorer);
+        }
+        edges.setVertexCount(sentenceCount);
+        for (int j = linkedSentenceCount; j < sentenceCount; j++) {
+            index.addSentence(j, scorer, edges);
+        }
+        linkedSentenceCount = sentenceCount;
+    }
+
+    /**
+     * Brings the scores up to date with the paragraphs added so far. Sentences that are
+     * already ranked start from their previous score and new ones from the usual 1.0.
+     * The CSR layout is only rebuilt when sentences arrived since the last ranking.
+     */
+    private void rank() {
+        int sentenceCount = sentences.size();
+        if (sentenceCount == rankedSentenceCount) {
+            return;
+        }
+        link();
+        graph = edges.build();
+        int ranked = scores.length;
+        scores = Arrays.copyOf(scores, sentenceCount);
+        Arrays.fill(scores, ranked, sentenceCount, 1.0);
+        lastConvergence = PowerIteration.iterate(graph, scores, PROBABILITY, convergencePolicy, solver);
+        rankedSentenceCount = sentenceCount;
+    }
+
+    /**
+     * @return the sentence graph of the paragraphs added so far
+     */
+    CsrGraph sentenceGraph() {
+        rank();
+        return graph;
+    }
+
+    /**
+     * @return the best sentence of the paragraphs added so far, or null if there is none yet
+     */
+    public TextRank.SentenceVertex topSentence() {
+        rank();
+        int[] top = TopK.select(scores, 1);
+        return top.length == 0 ? null : sentenceVertex(top[0]);
+    }
+
+    /**
+     * Builds a summary of the paragraphs added so far, as TextRank.summarize does. Once the
+     * last paragraph has been added this is the summary of the whole article.
+     * @param maxSentences most sentences in the summary
+     * @param maxCharacters character budget; the best sentence is always included
+     * @return the picked sentences in reading order
+     */
+    public ArrayList<TextRank.SentenceVertex> summarize(int maxSentences, int maxCharacters) {
+        rank();
+        int[] lengths = new int[scores.length];
+        for (int i = 0; i < lengths.length; i++) {
+            lengths[i] = sentences.get(i).length();
+        }
+        ArrayList<TextRank.SentenceVertex> summary = new ArrayList<TextRank.SentenceVertex>();
+        for (int i : SummaryBuilder.select(graph, scores, lengths, maxSentences, maxCharacters, DEFAULT_MMR_LAMBDA)) {
+            summary.add(sentenceVertex(i));
+        }
+        return summary;
+    }
+
+    private TextRank.SentenceVertex sentenceVertex(int i) {
+        TextRank.SentenceVertex v = textRank.new SentenceVertex(sentences.get(i), sentenceTokens.get(i), sentenceTerms[i]);
+        v.setScore(scores[i]);
+        return v;
+    }
+
+    /**
+     * Packages everything added so far as an AnalyzedText, without analyzing it again, for
+     * keyword extraction. The dictionary is handed over, so no paragraphs can be added
+     * afterwards; the sentence ranking can still be queried.
+     * @return the analyzed article
+     */
+    public AnalyzedText toAnalyzedText() {
+        finished = true;
+        int sentenceCount = sentences.size();
+        int size = dictionary.size();
+        return new AnalyzedText(sentences.toArray(new String[sentenceCount]),
+                sentenceTokens.toArray(new String[sentenceCount][]),
+                Arrays.copyOf(sentenceTerms, sentenceCount), Arrays.copyOf(tokenIds, tokenCount), Arrays.copyOf(tokenOffsets, tokenCount),
+                dictionary, Arrays.copyOf(stopwords, size), Arrays.copyOf(extendedStopwords, size));
+    }
+
+    /**
+     * @return number of paragraphs added so far
+     */
+    public int getParagraphCount() {
+        return paragraphCount;
+    }
+
+    /**
+     * @return number of sentences added so far
+     */
+    public int getSentenceCount() {
+        return sentences.size();
+    }
+
+    /**
+     * @return how the most recent ranking converged, or null if nothing has been ranked yet
+     */
+    public ConvergenceResult getLastConvergence() {
+        return lastConvergence;
+    }
+}
@@ -0,0 +1,108 @@
+package textrank;
+
+import java.util.Arrays;
+
+/**
+ * Builds the sentence graph from a token to sentence postings index. Sentences are
+ * visited in order; for each token of sentence j the postings list gives the earlier
+ * sentences that contain it, so only pairs with a non-zero overlap are ever touched.
+ * An instance keeps its postings between calls, so sentences can also be added a few at
+ * a time as a document arrives.
+ */
+final class InvertedIndexGraphBuilder {
+    //postings[t] lists, in increasing order, the sentences seen so far that contain t
+    private int[][] postings = new int[64][];
+    private int[] postingSizes = new int[64];
+    private int[] overlaps = new int[16];
+    private int[] touched = new int[16];
+
+    InvertedIndexGraphBuilder() {
+    }
+
+    /**
+     * @param sentenceCount number of sentences
+     * @param vocabularySize number of distinct token ids
+     * @param scorer supplies the terms to index and turns overlap counts into edge weights
+     * @return graph holding every pair with a positive weight
+     */
+    static CsrGraph build(int sentenceCount, int vocabularySize, SentenceSimilarity.Scorer scorer) {
+        CsrGraph.Builder builder = new CsrGraph.Builder(sentenceCount);
+        InvertedIndexGraphBuilder index = new InvertedIndexGraphBuilder();
+        index.ensureVocabulary(vocabularySize);
+        for (int j = 0; j < sentenceCount; j++) {
+            index.addSentence(j, scorer, builder);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Adds the edges between sentence j and every sentence added before it, then indexes j.
+     * Sentences must be added in order 0, 1, 2, ...
+     * @param j the sentence to add
+     * @param scorer supplies the terms of j and turns overlap counts into edge weights
+     * @param builder receives the edges (i, j), in increasing i
+     */
+    void addSentence(int j, SentenceSimilarity.Scorer scorer, CsrGraph.Builder builder) {
+        int[] sentence = scorer.terms(j);
+        if (j >= overlaps.length) {
+            int capacity = Math.max(j + 1, overlaps.length * 2);
+            overlaps = Arrays.copyOf(overlaps, capacity);
+            touched = Arrays.copyOf(touched, capacity);
+        }
+        if (sentence.length > 0) {
+            //Term ids are sorted, so the last one is the largest
+            ensureVocabulary(sentence[sentence.length - 1] + 1);
+        }
+        int touchedCount = 0;
+        //Accumulate overlaps with earlier sentences, one run of equal ids at a time
+        for (int start = 0; start < sentence.length; ) {
+            int term = sentence[start];
+            int end = start + 1;
+            while (end < sentence.length && sentence[end] == term) {
+                end++;
+            }
+            int multiplicity = end - start;
+            int[] list = postings[term];
+            for (int p = 0; p < postingSizes[term]; p++) {
+                int i = list[p];
+                if (overlaps[i] == 0) {
+                    touched[touchedCount++] = i;
+                }
+                overlaps[i] += multiplicity;
+            }
+            start = end;
+        }
+        //Emit edges in increasing i so neighbor lists stay sorted
+        Arrays.sort(touched, 0, touchedCount);
+        for (int t = 0; t < touchedCount; t++) {
+            int i = touched[t];
+            double weight = scorer.similarity(i, j, overlaps[i]);
+            if (weight > 0.0) {
+                builder.addEdge(i, j, weight);
+            }
+            overlaps[i] = 0;
+        }
+        //Index sentence j under each of its distinct tokens
+        for (int k = 0; k < sentence.length; k++) {
+            int term = sentence[k];
+            if (k > 0 && sentence[k - 1] == term) {
+                continue;
+            }
+            int[] list = postings[term];
+            if (list == null) {
+                list = postings[term] = new int[4];
+            } else if (postingSizes[term] == list.length) {
+                list = postings[term] = Arrays.copyOf(list, list.length * 2);
+            }
+            list[postingSizes[term]++] = j;
+        }
+    }
+
+    private void ensureVocabulary(int vocabularySize) {
+        if (vocabularySize > postings.length) {
+            int capacity = Math.max(vocabularySize, postings.length * 2);
+            postings = Arrays.copyOf(postings, capacity);
+            postingSizes = Arrays.copyOf(postingSizes, capacity);
+        }
+    }
+}
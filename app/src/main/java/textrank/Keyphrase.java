@@ -0,0 +1,52 @@
+package textrank;
+
+/**
+ * A run of adjacent top-ranked tokens from the article, such as "supreme court",
+ * scored by summing the TextRank scores of its words.
+ */
+public final class Keyphrase {
+    private final String phrase;
+    private final int wordCount;
+    private final double score;
+    private final int occurrences;
+
+    Keyphrase(String phrase, int wordCount, double score, int occurrences) {
+        this.phrase = phrase;
+        this.wordCount = wordCount;
+        this.score = score;
+        this.occurrences = occurrences;
+    }
+
+    /**
+     * @return the words of the phrase separated by single spaces
+     */
+    public String getPhrase() {
+        return phrase;
+    }
+
+    /**
+     * @return number of words in the phrase
+     */
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * @return sum of the TextRank scores of the phrase's words
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * @return how many times the phrase occurs in the article
+     */
+    public int getOccurrences() {
+        return occurrences;
+    }
+
+    @Override
+    public String toString() {
+        return phrase;
+    }
+}
@@ -0,0 +1,103 @@
+package textrank;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+
+/**
+ * Post-processing from section 3 of the TextRank paper: after ranking, the top tokens
+ * are marked in the original text, and sequences of adjacent marked tokens are
+ * collapsed into multi-word keyphrases. This is a single scan over the token
+ * sequence; no second graph is built.
+ */
+final class KeyphraseCollapser {
+
+    private KeyphraseCollapser() {
+    }
+
+    /**
+     * @param text the analyzed article
+     * @param positions whether each position of getTokenIds() passed the part-of-speech
+     *                  filter, or null if every position did
+     * @param vertexIds vertex id of each token id, or -1 if the token was not ranked
+     * @param scores score of each vertex
+     * @param candidates how many of the best vertices may take part in phrases
+     * @return keyphrases, best first
+     */
+    static ArrayList<Keyphrase> collapse(AnalyzedText text, boolean[] positions, int[] vertexIds, double[] scores, int candidates) {
+        boolean[] selected = selectTop(scores, candidates);
+        int[] tokens = text.getTokenIds();
+        HashMap<String, Keyphrase> phrases = new HashMap<String, Keyphrase>();
+        StringBuilder phrase = new StringBuilder();
+        for (int s = 0; s < text.getSentenceCount(); s++) {
+            //Phrases never cross a sentence boundary
+            int end = text.getSentenceEnd(s);
+            int i = text.getSentenceStart(s);
+            while (i < end) {
+                if (!isSelected(i, tokens, positions, vertexIds, selected)) {
+                    i++;
+                    continue;
+                }
+                phrase.setLength(0);
+                double score = 0;
+                int words = 0;
+                while (i < end && isSelected(i, tokens, positions, vertexIds, selected)) {
+                    if (words > 0) {
+                        phrase.append(' ');
+                    }
+                    phrase.append(text.getToken(tokens[i]));
+                    score += scores[vertexIds[tokens[i]]];
+                    words++;
+                    i++;
+                }
+                String key = phrase.toString();
+                Keyphrase previous = phrases.get(key);
+                int occurrences = previous == null ? 1 : previous.getOccurrences() + 1;
+                phrases.put(key, new Keyphrase(key, words, score, occurrences));
+            }
+        }
+        ArrayList<Keyphrase> result = new ArrayList<Keyphrase>(phrases.values());
+        Collections.sort(result, new Comparator<Keyphrase>() {
+            @Override
+            public int compare(Keyphrase lhs, Keyphrase rhs) {
+                int order = Double.compare(rhs.getScore(), lhs.getScore());
+                return order != 0 ? order : lhs.getPhrase().compareTo(rhs.getPhrase());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * A vertex is ranked by token id, but the part-of-speech tag belongs to one position:
+     * the same word can be a noun in one sentence and a verb in the next
+     * @return whether the token at position i is part of a phrase
+     */
+    private static boolean isSelected(int i, int[] tokens, boolean[] positions, int[] vertexIds, boolean[] selected) {
+        if (positions != null && !positions[i]) {
+            return false;
+        }
+        int vertex = vertexIds[tokens[i]];
+        return vertex >= 0 && selected[vertex];
+    }
+
+    /**
+     * Marks the vertices whose score is among the best count scores, in O(V log count)
+     */
+    private static boolean[] selectTop(double[] scores, int count) {
+        boolean[] selected = new boolean[scores.length];
+        if (count >= scores.length) {
+            Arrays.fill(selected, true);
+            return selected;
+        }
+        if (count <= 0) {
+            return selected;
+        }
+        //A bounded heap instead of sorting every score; ties go to the earlier vertex
+        for (int v : TopK.select(scores, count)) {
+            selected[v] = true;
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,109 @@
+package textrank;
+
+import java.util.Arrays;
+
+/**
+ * A minimal open-addressing hash map from long keys to int counts, with linear probing.
+ * Keys and values live in two parallel primitive arrays, so counting does not box.
+ * Long.MIN_VALUE is reserved to mark empty slots and cannot be used as a key.
+ */
+final class LongIntHashMap {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    /**
+     * @param expectedSize number of keys that can be stored without resizing
+     */
+    LongIntHashMap(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new int[capacity];
+    }
+
+    /**
+     * Adds delta to the value of key, inserting it with value delta if absent
+     * @param key the key
+     * @param delta amount to add
+     */
+    void add(long key, int delta) {
+        int slot = slot(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            values[slot] = delta;
+            if (++size * 2 > keys.length) {
+                rehash();
+            }
+        } else {
+            values[slot] += delta;
+        }
+    }
+
+    /**
+     * @param key the key
+     * @return its value, or 0 if absent
+     */
+    int get(long key) {
+        int slot = slot(key);
+        return keys[slot] == EMPTY ? 0 : values[slot];
+    }
+
+    /**
+     * @return number of keys
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return all keys in ascending order
+     */
+    long[] sortedKeys() {
+        long[] result = new long[size];
+        int k = 0;
+        for (long key : keys) {
+            if (key != EMPTY) {
+                result[k++] = key;
+            }
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Finds the slot holding key, or the empty slot where it would be inserted
+     */
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        //Mix the high bits in, since packed pairs differ mostly in the upper half
+        long h = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (h ^ (h >>> 32)) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package textrank;
+
+/**
+ * The sentence similarity from section 4.1 of the TextRank paper: the number of shared
+ * tokens divided by the sum of the log lengths of the two sentences. Optionally ignores
+ * stopwords, which removes edges between sentences that only share words like "the".
+ */
+public class OverlapSimilarity implements SentenceSimilarity {
+    private final boolean ignoreStopwords;
+
+    /**
+     * @param ignoreStopwords if true, stopwords are dropped before counting and measuring length
+     */
+    public OverlapSimilarity(boolean ignoreStopwords) {
+        this.ignoreStopwords = ignoreStopwords;
+    }
+
+    @Override
+    public Scorer prepare(final SentenceTerms sentences) {
+        return new Scorer() {
+            @Override
+            public boolean usesArticleStatistics() {
+                return false;
+            }
+
+            @Override
+            public int[] terms(int sentence) {
+                return ignoreStopwords ? sentences.getContentTerms(sentence) : sentences.getTerms(sentence);
+            }
+
+            @Override
+            public double similarity(int i, int j) {
+                return similarity(i, j, SentenceTerms.overlap(terms(i), terms(j)));
+            }
+
+            @Override
+            public double similarity(int i, int j, int overlap) {
+                return normalize(overlap, terms(i).length, terms(j).length);
+            }
+        };
+    }
+
+    /**
+     * Normalizes an overlap count by the log lengths of the two sentences
+     * @param similarities number of shared tokens
+     * @param numWordsInSentence1 length of the first sentence
+     * @param numWordsInSentence2 length of the second sentence
+     * @return a similarity score
+     */
+    static double normalize(int similarities, int numWordsInSentence1, int numWordsInSentence2) {
+        double denominator = Math.log(numWordsInSentence1) + Math.log(numWordsInSentence2);
+        //Two one-word sentences would divide by zero, and an empty sentence by -Infinity
+        if (denominator <= 0) {
+            return 0;
+        }
+        return (double) similarities / denominator;
+    }
+}
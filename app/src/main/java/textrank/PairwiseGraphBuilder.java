@@ -0,0 +1,111 @@
+package textrank;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Builds a CsrGraph by scoring every unordered pair of vertices (the upper triangle
+ * of the similarity matrix) and keeping the pairs with a positive score.
+ * The work can either run on the calling thread or be split into row blocks on an
+ * ExecutorService; both produce the same edges in the same order.
+ */
+final class PairwiseGraphBuilder {
+
+    //Blocks per worker thread, so that uneven blocks still balance out
+    private static final int BLOCKS_PER_THREAD = 4;
+
+    private PairwiseGraphBuilder() {
+    }
+
+    /**
+     * Scores all pairs on the calling thread
+     * @param vertexCount number of vertices
+     * @param scorer sentence similarity
+     * @return graph holding every pair with a positive score
+     */
+    static CsrGraph build(int vertexCount, SentenceSimilarity.Scorer scorer) {
+        CsrGraph.Builder builder = new CsrGraph.Builder(vertexCount);
+        scoreRows(0, vertexCount, vertexCount, scorer, builder);
+        return builder.build();
+    }
+
+    /**
+     * Splits the upper triangle into row blocks of roughly equal pair counts and scores
+     * each block on the executor. Every block collects its edges into its own builder,
+     * and the blocks are concatenated in row order afterwards, so no locking is needed
+     * and the result is identical to build(vertexCount, scorer).
+     * @param vertexCount number of vertices
+     * @param scorer sentence similarity
+     * @param executor executor to run the blocks on
+     * @return graph holding every pair with a positive score
+     */
+    static CsrGraph build(final int vertexCount, final SentenceSimilarity.Scorer scorer, ExecutorService executor) {
+        int blockCount = Runtime.getRuntime().availableProcessors() * BLOCKS_PER_THREAD;
+        long pairsPerBlock = Math.max(1, pairCount(vertexCount) / blockCount);
+        ArrayList<Future<CsrGraph.Builder>> blocks = new ArrayList<Future<CsrGraph.Builder>>();
+        int firstRow = 0;
+        while (firstRow < vertexCount) {
+            //Row i holds vertexCount - 1 - i pairs, so later blocks span more rows
+            int lastRow = firstRow;
+            long pairs = 0;
+            while (lastRow < vertexCount && pairs < pairsPerBlock) {
+                pairs += vertexCount - 1 - lastRow;
+                lastRow++;
+            }
+            final int from = firstRow;
+            final int to = lastRow;
+            blocks.add(executor.submit(new Callable<CsrGraph.Builder>() {
+                @Override
+                public CsrGraph.Builder call() {
+                    CsrGraph.Builder local = new CsrGraph.Builder(vertexCount);
+                    scoreRows(from, to, vertexCount, scorer, local);
+                    return local;
+                }
+            }));
+            firstRow = lastRow;
+        }
+        CsrGraph.Builder builder = new CsrGraph.Builder(vertexCount);
+        try {
+            for (Future<CsrGraph.Builder> block : blocks) {
+                builder.addAll(block.get());
+            }
+        } catch (InterruptedException e) {
+            for (Future<CsrGraph.Builder> block : blocks) {
+                block.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while building the sentence graph", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+        return builder.build();
+    }
+
+    private static long pairCount(int vertexCount) {
+        return (long) vertexCount * (vertexCount - 1) / 2;
+    }
+
+    /**
+     * Scores the pairs (i, j) with from <= i < to and i < j
+     */
+    private static void scoreRows(int from, int to, int vertexCount, SentenceSimilarity.Scorer scorer, CsrGraph.Builder out) {
+        for (int i = from; i < to; i++) {
+            for (int j = i + 1; j < vertexCount; j++) {
+                double weight = scorer.similarity(i, j);
+                if (weight > 0.0) {
+                    out.addEdge(i, j, weight);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package textrank;
+
+/**
+ * The weighted PageRank iteration used by TextRank (section 2.2 of the TextRank paper),
+ * run over a CsrGraph and a primitive score array.
+ */
+final class PowerIteration {
+
+    private PowerIteration() {
+    }
+
+    /**
+     * Repeatedly updates scores until the policy says to stop.
+     * @param graph graph to rank
+     * @param scores initial scores, overwritten with the final scores
+     * @param damping the damping factor d
+     * @param policy tolerance, norm and iteration cap
+     * @param solver whether to sweep with Jacobi (double-buffered) or Gauss-Seidel (in place) updates
+     * @return iteration count, final residual and elapsed time
+     */
+    static ConvergenceResult iterate(CsrGraph graph, double[] scores, double damping,
+                                     ConvergencePolicy policy, Solver solver) {
+        long start = System.nanoTime();
+        boolean l1 = policy.getNorm() == ConvergencePolicy.Norm.L1;
+        double tolerance = policy.getTolerance();
+        //Jacobi reads from one buffer and writes to the other, swapping them after every sweep
+        double[] current = scores;
+        double[] next = solver == Solver.JACOBI ? new double[scores.length] : scores;
+        int iterations = 0;
+        double residual = 0;
+        boolean converged = scores.length == 0;
+        while (!converged && iterations < policy.getMaxIterations()) {
+            residual = sweep(graph, current, next, 0, scores.length, damping, l1);
+            if (next != current) {
+                double[] swap = current;
+                current = next;
+                next = swap;
+            }
+            iterations++;
+            //A NaN residual can never get below the tolerance, so give up straight away
+            if (Double.isNaN(residual) || Double.isInfinite(residual)) {
+                break;
+            }
+            converged = residual <= tolerance;
+        }
+        if (current != scores) {
+            System.arraycopy(current, 0, scores, 0, scores.length);
+        }
+        return new ConvergenceResult(solver, iterations, residual, System.nanoTime() - start, converged);
+    }
+
+    /**
+     * Computes new scores for the vertices in [from, to). When in and out are the same
+     * array this is a Gauss-Seidel sweep; otherwise only out is written, so disjoint
+     * ranges can be swept concurrently.
+     * @return residual of the range under the chosen norm
+     */
+    static double sweep(CsrGraph graph, double[] in, double[] out, int from, int to, double damping, boolean l1) {
+        int[] offsets = graph.offsets;
+        int[] neighbors = graph.neighbors;
+        double[] weights = graph.weights;
+        double[] outWeights = graph.outWeights;
+        double residual = 0;
+        for (int i = from; i < to; i++) {
+            double sum = 0;
+            for (int e = offsets[i], end = offsets[i + 1]; e < end; e++) {
+                int j = neighbors[e];
+                sum += (weights[e] / outWeights[j]) * in[j];
+            }
+            double newScore = (1.0 - damping) + damping * sum;
+            double change = Math.abs(newScore - in[i]);
+            residual = l1 ? residual + change : Math.max(residual, change);
+            out[i] = newScore;
+        }
+        return residual;
+    }
+}
@@ -0,0 +1,81 @@
+package textrank;
+
+import java.util.Arrays;
+
+/**
+ * The TokenizerMode.RULE_BASED tokenizer. Reads a sentence once, dropping punctuation (the
+ * chars \p{P} matches, so "don't" and "U.S." are joined as before), lowercasing each char
+ * with Character.toLowerCase and ending a token at whitespace. Tokens are folded into a
+ * buffer that is reused between sentences and interned from their span of it, so only a
+ * token the article hasn't used yet becomes a String. See TokenizerMode.RULE_BASED for where
+ * its case folding differs from String.toLowerCase.
+ *
+ * Not thread-safe; TextRankModels keeps one per thread.
+ */
+final class RuleBasedTokenizer {
+    private char[] buffer = new char[64];
+    private int[] ids = new int[64];
+
+    /**
+     * Tokenizes a sentence and interns its tokens
+     * @param sentence a detected sentence
+     * @param dictionary dictionary of the article
+     * @return ids of the sentence's tokens in reading order
+     */
+    int[] intern(String sentence, TokenDictionary dictionary) {
+        int count = 0;
+        int length = 0;
+        for (int i = 0; i < sentence.length(); i++) {
+            char c = sentence.charAt(i);
+            int type = Character.getType(c);
+            if (isPunctuation(type)) {
+                continue;
+            }
+            if (type == Character.SPACE_SEPARATOR || Character.isWhitespace(c)) {
+                count = addToken(dictionary, length, count);
+                length = 0;
+            } else {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, length * 2);
+                }
+                buffer[length++] = Character.toLowerCase(c);
+            }
+        }
+        count = addToken(dictionary, length, count);
+        return Arrays.copyOf(ids, count);
+    }
+
+    /**
+     * Interns the token folded into the buffer, if there is one
+     * @return the new number of tokens in the sentence
+     */
+    private int addToken(TokenDictionary dictionary, int length, int count) {
+        if (length == 0) {
+            return count;
+        }
+        if (count == ids.length) {
+            ids = Arrays.copyOf(ids, count * 2);
+        }
+        ids[count] = dictionary.intern(buffer, 0, length);
+        return count + 1;
+    }
+
+    /**
+     * @param type a Character.getType category
+     * @return whether \p{P} matches chars of that category
+     */
+    static boolean isPunctuation(int type) {
+        switch (type) {
+            case Character.CONNECTOR_PUNCTUATION:
+            case Character.DASH_PUNCTUATION:
+            case Character.START_PUNCTUATION:
+            case Character.END_PUNCTUATION:
+            case Character.INITIAL_QUOTE_PUNCTUATION:
+            case Character.FINAL_QUOTE_PUNCTUATION:
+            case Character.OTHER_PUNCTUATION:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package textrank;
+
+/**
+ * A similarity function between the sentences of an article, used as the edge weight
+ * of the sentence graph. Implementations hold only configuration; everything that depends
+ * on the article is computed in prepare(), so one instance can serve many articles.
+ */
+public interface SentenceSimilarity {
+
+    /**
+     * Computes whatever per-article statistics the function needs
+     * @param sentences the article's sentences as token ids
+     * @return a scorer for pairs of sentences of this article
+     */
+    Scorer prepare(SentenceTerms sentences);
+
+    /**
+     * Scores sentence pairs of a single article. Scorers are not modified after prepare()
+     * returns, so the graph builder may call them from several threads at once.
+     */
+    abstract class Scorer {
+
+        /**
+         * Whether weights depend on statistics of the whole article, such as document
+         * frequencies or the average sentence length, which change as sentences are added.
+         * IncrementalTextRank prepares such a scorer again for every ranking and rescores
+         * the existing edges. A scorer that returns false must read the SentenceTerms it was
+         * prepared from on demand, because it is reused for sentences added later.
+         * @return true unless every weight depends only on the pair of sentences
+         */
+        public boolean usesArticleStatistics() {
+            return true;
+        }
+
+        /**
+         * The token ids this function looks at for a sentence. Two sentences whose
+         * terms don't intersect must have a similarity of 0, which lets the graph
+         * builder skip them.
+         * @param sentence index of a sentence
+         * @return sorted token ids, duplicates included
+         */
+        public abstract int[] terms(int sentence);
+
+        /**
+         * @param i the earlier sentence
+         * @param j the later sentence
+         * @return the similarity; values &lt;= 0 mean no edge
+         */
+        public abstract double similarity(int i, int j);
+
+        /**
+         * Same as similarity(i, j), for callers that already know how many terms
+         * of j occur in i. Overlap-based functions override this to skip the intersection.
+         * @param i the earlier sentence
+         * @param j the later sentence
+         * @param overlap number of terms of j (duplicates included) that occur in terms(i)
+         * @return the similarity
+         */
+        public double similarity(int i, int j, int overlap) {
+            return similarity(i, j);
+        }
+    }
+}
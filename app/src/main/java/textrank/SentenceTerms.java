@@ -0,0 +1,160 @@
+package textrank;
+
+import java.util.Arrays;
+
+/**
+ * The sentences of one article as sorted arrays of token ids, with enough
+ * per-document statistics for the sentence similarity functions. IncrementalTextRank
+ * appends sentences to its instance as paragraphs arrive; an instance is never changed
+ * while a scorer prepared from it is in use on another thread.
+ */
+public final class SentenceTerms {
+    private int[][] terms;
+    private int[][] contentTerms;
+    private int sentenceCount;
+    private int vocabularySize;
+    private boolean[] stopwords;
+
+    /**
+     * @param terms sorted token ids of each sentence, duplicates included
+     * @param vocabularySize number of distinct token ids in the article
+     * @param stopwords stopwords[id] is true if the token with that id is a stopword
+     */
+    SentenceTerms(int[][] terms, int vocabularySize, boolean[] stopwords) {
+        this.terms = terms;
+        this.sentenceCount = terms.length;
+        this.vocabularySize = vocabularySize;
+        this.stopwords = stopwords;
+        this.contentTerms = new int[terms.length][];
+        for (int i = 0; i < terms.length; i++) {
+            contentTerms[i] = withoutStopwords(terms[i]);
+        }
+    }
+
+    /**
+     * Creates an empty instance for add
+     */
+    SentenceTerms() {
+        this.terms = new int[16][];
+        this.contentTerms = new int[16][];
+        this.stopwords = new boolean[0];
+    }
+
+    /**
+     * Appends a sentence. Only the new sentence's content terms are computed.
+     * @param sentence sorted token ids of the sentence, duplicates included
+     * @param vocabularySize number of distinct token ids so far
+     * @param stopwords stopword flags covering every id so far
+     */
+    void add(int[] sentence, int vocabularySize, boolean[] stopwords) {
+        this.vocabularySize = vocabularySize;
+        this.stopwords = stopwords;
+        if (sentenceCount == terms.length) {
+            terms = Arrays.copyOf(terms, sentenceCount * 2);
+            contentTerms = Arrays.copyOf(contentTerms, sentenceCount * 2);
+        }
+        terms[sentenceCount] = sentence;
+        contentTerms[sentenceCount] = withoutStopwords(sentence);
+        sentenceCount++;
+    }
+
+    private int[] withoutStopwords(int[] sentence) {
+        int count = 0;
+        for (int id : sentence) {
+            if (!stopwords[id]) {
+                count++;
+            }
+        }
+        if (count == sentence.length) {
+            return sentence;
+        }
+        int[] result = new int[count];
+        int k = 0;
+        for (int id : sentence) {
+            if (!stopwords[id]) {
+                result[k++] = id;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return number of sentences
+     */
+    public int getSentenceCount() {
+        return sentenceCount;
+    }
+
+    /**
+     * @return number of distinct token ids; every id is below this value
+     */
+    public int getVocabularySize() {
+        return vocabularySize;
+    }
+
+    /**
+     * @param sentence index of a sentence
+     * @return sorted token ids of the sentence, duplicates included
+     */
+    public int[] getTerms(int sentence) {
+        return terms[sentence];
+    }
+
+    /**
+     * @param sentence index of a sentence
+     * @return sorted token ids of the sentence with stopwords removed
+     */
+    public int[] getContentTerms(int sentence) {
+        return contentTerms[sentence];
+    }
+
+    /**
+     * @param id a token id
+     * @return whether that token is on the stopword list
+     */
+    public boolean isStopword(int id) {
+        return stopwords[id];
+    }
+
+    /**
+     * Counts, for every token id, how many of the given sentences contain it
+     * @param sentences one sorted id array per sentence
+     * @return document frequencies indexed by token id
+     */
+    int[] documentFrequencies(int[][] sentences) {
+        int[] df = new int[vocabularySize];
+        for (int[] sentence : sentences) {
+            for (int k = 0; k < sentence.length; k++) {
+                if (k == 0 || sentence[k] != sentence[k - 1]) {
+                    df[sentence[k]]++;
+                }
+            }
+        }
+        return df;
+    }
+
+    /**
+     * Counts the tokens of the second array (duplicates included) that occur in the first
+     * @param s1 sorted ids
+     * @param s2 sorted ids
+     * @return size of the overlap
+     */
+    static int overlap(int[] s1, int[] s2) {
+        int i = 0;
+        int j = 0;
+        int overlap = 0;
+        while (i < s1.length && j < s2.length) {
+            int a = s1[i];
+            int b = s2[j];
+            if (a < b) {
+                i++;
+            } else {
+                if (a == b) {
+                    overlap++;
+                }
+                j++;
+            }
+        }
+        return overlap;
+    }
+}
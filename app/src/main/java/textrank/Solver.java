@@ -0,0 +1,17 @@
+package textrank;
+
+/**
+ * Update order used by the TextRank power iteration.
+ */
+public enum Solver {
+    /**
+     * Every sweep reads only the previous sweep's scores and writes into a second array.
+     * Results do not depend on vertex order, and a sweep can be split across threads.
+     */
+    JACOBI,
+    /**
+     * Scores are updated in place in vertex order, so later vertices already see this
+     * sweep's values. Usually converges in fewer sweeps on a single core.
+     */
+    GAUSS_SEIDEL
+}
@@ -0,0 +1,231 @@
+package textrank;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable set of stopwords stored as a char trie in flat arrays, so membership can be
+ * tested on a CharSequence or a span of a char[] without allocating. Nodes are numbered
+ * breadth first with siblings sorted by char, which puts the children of node n at
+ * firstChild[n] up to firstChild[n + 1] and lets a lookup binary search them.
+ *
+ * The build compiles the stopword lists with build and write (the generateStopwordTries
+ * task in app/build.gradle), and the app loads them with read, one bulk read per list.
+ * This class must only use the JDK, because the build script compiles it too.
+ */
+public final class StopwordTrie {
+    //"STR1"
+    private static final int MAGIC = 0x53545231;
+
+    //labels[n] is the char on the edge into node n; node 0 is the root
+    private final char[] labels;
+    private final int[] firstChild;
+    //Bit n is set if the path to node n spells a stopword
+    private final long[] terminal;
+    private final int size;
+
+    private StopwordTrie(char[] labels, int[] firstChild, long[] terminal, int size) {
+        this.labels = labels;
+        this.firstChild = firstChild;
+        this.terminal = terminal;
+        this.size = size;
+    }
+
+    /**
+     * Builds a trie of the given words. Duplicates are ignored.
+     * @param words the stopwords, matched exactly as given
+     * @return the trie
+     */
+    public static StopwordTrie build(Iterable<String> words) {
+        Node root = new Node();
+        int size = 0;
+        for (String word : words) {
+            Node node = root;
+            for (int i = 0; i < word.length(); i++) {
+                Node child = node.children.get(word.charAt(i));
+                if (child == null) {
+                    child = new Node();
+                    node.children.put(word.charAt(i), child);
+                }
+                node = child;
+            }
+            if (!node.terminal) {
+                node.terminal = true;
+                size++;
+            }
+        }
+        //Number the nodes breadth first, so the children of each node are contiguous
+        ArrayList<Node> nodes = new ArrayList<Node>();
+        ArrayList<Character> edges = new ArrayList<Character>();
+        nodes.add(root);
+        edges.add('\0');
+        ArrayList<Integer> first = new ArrayList<Integer>();
+        for (int n = 0; n < nodes.size(); n++) {
+            first.add(nodes.size());
+            for (Map.Entry<Character, Node> child : nodes.get(n).children.entrySet()) {
+                nodes.add(child.getValue());
+                edges.add(child.getKey());
+            }
+        }
+        int nodeCount = nodes.size();
+        char[] labels = new char[nodeCount];
+        int[] firstChild = new int[nodeCount + 1];
+        long[] terminal = new long[(nodeCount + 63) >>> 6];
+        for (int n = 0; n < nodeCount; n++) {
+            labels[n] = edges.get(n);
+            firstChild[n] = first.get(n);
+            if (nodes.get(n).terminal) {
+                terminal[n >>> 6] |= 1L << n;
+            }
+        }
+        firstChild[nodeCount] = nodeCount;
+        return new StopwordTrie(labels, firstChild, terminal, size);
+    }
+
+    /**
+     * Builds a trie from a plain stopword list, one word per line. The stream is closed.
+     * @param in the list
+     * @return the trie
+     */
+    public static StopwordTrie readWordList(InputStream in) throws IOException {
+        ArrayList<String> words = new ArrayList<String>();
+        BufferedReader br = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+        try {
+            String line;
+            while ((line = br.readLine()) != null) {
+                words.add(line);
+            }
+        } finally {
+            br.close();
+        }
+        return build(words);
+    }
+
+    /**
+     * Loads a trie written by write. The stream is closed.
+     * @param in the serialized trie
+     * @return the trie
+     * @throws IOException if the stream can't be read or doesn't hold a trie
+     */
+    public static StopwordTrie read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        try {
+            if (data.readInt() != MAGIC) {
+                throw new IOException("Not a stopword trie");
+            }
+            int nodeCount = data.readInt();
+            int size = data.readInt();
+            if (nodeCount < 1 || size < 0) {
+                throw new IOException("Corrupt stopword trie");
+            }
+            char[] labels = new char[nodeCount];
+            int[] firstChild = new int[nodeCount + 1];
+            long[] terminal = new long[(nodeCount + 63) >>> 6];
+            //The three arrays follow the header back to back, so they are read in one go
+            ByteBuffer body = ByteBuffer.allocate(2 * labels.length + 4 * firstChild.length + 8 * terminal.length);
+            data.readFully(body.array());
+            body.asCharBuffer().get(labels);
+            body.position(2 * labels.length);
+            body.asIntBuffer().get(firstChild);
+            body.position(body.position() + 4 * firstChild.length);
+            body.asLongBuffer().get(terminal);
+            return new StopwordTrie(labels, firstChild, terminal, size);
+        } finally {
+            data.close();
+        }
+    }
+
+    /**
+     * Serializes the trie for read. The stream is flushed but not closed.
+     * @param out destination of the trie
+     */
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(labels.length);
+        data.writeInt(size);
+        for (char label : labels) {
+            data.writeChar(label);
+        }
+        for (int first : firstChild) {
+            data.writeInt(first);
+        }
+        for (long bits : terminal) {
+            data.writeLong(bits);
+        }
+        data.flush();
+    }
+
+    /**
+     * @param word a token
+     * @return whether it is one of the stopwords
+     */
+    public boolean contains(CharSequence word) {
+        int node = 0;
+        for (int i = 0; i < word.length() && node >= 0; i++) {
+            node = child(node, word.charAt(i));
+        }
+        return node >= 0 && isTerminal(node);
+    }
+
+    /**
+     * @param chars text holding a token
+     * @param start index of the token's first char
+     * @param end index after the token's last char
+     * @return whether chars[start, end) is one of the stopwords
+     */
+    public boolean contains(char[] chars, int start, int end) {
+        int node = 0;
+        for (int i = start; i < end && node >= 0; i++) {
+            node = child(node, chars[i]);
+        }
+        return node >= 0 && isTerminal(node);
+    }
+
+    /**
+     * @return number of stopwords
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the child of node along the edge labeled c, or -1
+     */
+    private int child(int node, char c) {
+        int low = firstChild[node];
+        int high = firstChild[node + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (labels[mid] < c) {
+                low = mid + 1;
+            } else if (labels[mid] > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isTerminal(int node) {
+        return (terminal[node >>> 6] & (1L << node)) != 0;
+    }
+
+    /**
+     * A node of the trie while it is being built
+     */
+    private static final class Node {
+        final TreeMap<Character, Node> children = new TreeMap<Character, Node>();
+        boolean terminal;
+    }
+}
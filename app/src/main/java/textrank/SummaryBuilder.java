@@ -0,0 +1,72 @@
+package textrank;
+
+import java.util.Arrays;
+
+/**
+ * Greedy maximal-marginal-relevance selection of summary sentences. Each pick maximizes
+ * lambda * (normalized TextRank score) - (1 - lambda) * (largest normalized similarity to a
+ * sentence already picked). Similarities are the edge weights of the sentence graph, so
+ * nothing is recomputed: after a pick, only the picked sentence's neighbors are updated.
+ */
+final class SummaryBuilder {
+
+    private SummaryBuilder() {
+    }
+
+    /**
+     * @param graph the sentence graph the scores were computed on
+     * @param scores TextRank score of each sentence
+     * @param lengths length in characters of each sentence
+     * @param maxSentences most sentences to pick
+     * @param maxCharacters character budget for the picked sentences; the first pick is
+     *                      always taken so the summary is never empty
+     * @param lambda trade-off between relevance (1) and novelty (0)
+     * @return indices of the picked sentences in document order
+     */
+    static int[] select(CsrGraph graph, double[] scores, int[] lengths, int maxSentences, int maxCharacters, double lambda) {
+        int n = scores.length;
+        double maxScore = 0;
+        for (double score : scores) {
+            maxScore = Math.max(maxScore, score);
+        }
+        double maxWeight = 0;
+        for (double weight : graph.weights) {
+            maxWeight = Math.max(maxWeight, weight);
+        }
+        //redundancy[i] is the largest similarity between i and any picked sentence
+        double[] redundancy = new double[n];
+        boolean[] picked = new boolean[n];
+        int[] result = new int[Math.max(0, Math.min(maxSentences, n))];
+        int count = 0;
+        int characters = 0;
+        while (count < result.length) {
+            int best = -1;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                if (picked[i] || (count > 0 && characters + lengths[i] > maxCharacters)) {
+                    continue;
+                }
+                double relevance = maxScore > 0 ? scores[i] / maxScore : 0;
+                double novelty = maxWeight > 0 ? redundancy[i] / maxWeight : 0;
+                double value = lambda * relevance - (1 - lambda) * novelty;
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            picked[best] = true;
+            result[count++] = best;
+            characters += lengths[best];
+            for (int e = graph.offsets[best]; e < graph.offsets[best + 1]; e++) {
+                int j = graph.neighbors[e];
+                redundancy[j] = Math.max(redundancy[j], graph.weights[e]);
+            }
+        }
+        result = Arrays.copyOf(result, count);
+        Arrays.sort(result);
+        return result;
+    }
+}
@@ -2,43 +2,38 @@ package textrank;
 
 import android.util.Log;
 
-import org.jgrapht.graph.DefaultEdge;
-import org.jgrapht.graph.DefaultWeightedEdge;
-import org.jgrapht.graph.SimpleGraph;
-import org.jgrapht.graph.SimpleWeightedGraph;
-
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedHashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.regex.Pattern;
 
-import opennlp.tools.sentdetect.SentenceDetectorME;
-import opennlp.tools.sentdetect.SentenceModel;
 import opennlp.tools.tokenize.Tokenizer;
-import opennlp.tools.tokenize.TokenizerME;
-import opennlp.tools.tokenize.TokenizerModel;
+import opennlp.tools.util.Span;
 
 /**
  * Class to perform different TextRank-algorithms on a body of text
  * Created by jonathanreynolds on 3/19/16.
  */
 public class TextRank {
-    private SimpleWeightedGraph<SentenceVertex, DefaultWeightedEdge> graph;
-    private SimpleGraph<TokenVertex, DefaultEdge> tokenGraph;
-    private SentenceDetectorME sdetector;
-    private Tokenizer tokenizer;
-    private final double CONVERGENCE_THRESHOLD = 0.0001;
+    private static final Pattern PUNCTUATION = Pattern.compile("\\p{P}");
+    private final TextRankModels models;
     private final double PROBABILITY = 0.85;
-    private final int COOCCURENCE_WINDOW = 2;
-    private final HashSet<String> stopwords = new HashSet<String>();
-    private final HashSet<String> extendedStopwords = new HashSet<String>();
+    private final double DEFAULT_MMR_LAMBDA = 0.7;
+    //Settings are volatile so that worker threads see changes made on another thread
+    private volatile ConvergencePolicy convergencePolicy = ConvergencePolicy.DEFAULT;
+    private volatile Solver solver = Solver.GAUSS_SEIDEL;
+    private volatile ExecutorService graphExecutor;
+    private volatile GraphMode graphMode = GraphMode.ALL_PAIRS;
+    private volatile TokenizerMode tokenizerMode = TokenizerMode.OPENNLP;
+    private volatile SentenceSimilarity similarity = new OverlapSimilarity(false);
+    private volatile int cooccurrenceWindow = 2;
+    private volatile boolean partOfSpeechFilter;
+    private final ThreadLocal<ConvergenceResult> lastSentenceConvergence = new ThreadLocal<ConvergenceResult>();
+    private final ThreadLocal<ConvergenceResult> lastKeywordConvergence = new ThreadLocal<ConvergenceResult>();
 
 
     /**
@@ -46,143 +41,170 @@ public class TextRank {
      * for Sentence extraction and Tokenization, as well as stopwords lists for filtering.
      */
     public TextRank(InputStream sent, InputStream token, InputStream stop, InputStream exstop) throws IOException {
-        init(sent, token, stop, exstop);
-    }
-
-    /**
-     * Initialization method. Creates a new graph and initializes the StanfordNLPCore pipeline if needed
-     * @param sent
-     * @param token
-     */
-    private void init(InputStream sent, InputStream token, InputStream stop, InputStream exstop) throws IOException {
-        // creates a new SentenceDetector, POSTagger, and Tokenizer
-        SentenceModel sentModel = new SentenceModel(sent);
-        sent.close();
-        sdetector = new SentenceDetectorME(sentModel);
-        TokenizerModel tokenModel = new TokenizerModel(token);
-        token.close();
-        tokenizer = new TokenizerME(tokenModel);
-        BufferedReader br = new BufferedReader(new InputStreamReader(stop));
-        String line;
-        while ((line = br.readLine()) != null) {
-            stopwords.add(line);
-        }
-        br.close();
-        br = new BufferedReader(new InputStreamReader(exstop));
-        while ((line = br.readLine()) != null) {
-            extendedStopwords.add(line);
-        }
-        br.close();
-    }
-
-    /**
-     * Creates a TextRank graph from an article
-     * @param article a String argument containing a body of text
-     */
-    private void createGraph(String article){
-        graph =  new SimpleWeightedGraph<SentenceVertex, DefaultWeightedEdge>(DefaultWeightedEdge.class);
-        String[] sentences = sdetector.sentDetect(article);
-        //Initialize graph with a vertex for each sentence
-        for(String sentence: sentences){
-            //Remove punctuation for each sentence
-            SentenceVertex sv = new SentenceVertex(sentence, tokenizer.tokenize(sentence.replaceAll("\\p{P}", "")));
-            graph.addVertex(sv);
-        }
-        //Create edges
-        for(SentenceVertex v1: graph.vertexSet()){
-            for(SentenceVertex v2: graph.vertexSet()){
-                if(v1 != v2){
-                    DefaultWeightedEdge dwe = graph.addEdge(v1, v2);
-                    //If the edge hasn't yet been added
-                    if(dwe != null) {
-                        double weight = calculateSimilarity(v1, v2);
-                        if(weight > 0.0) {
-                            graph.setEdgeWeight(dwe, weight);
-                        }
-                        else{
-                            graph.removeEdge(dwe);
-                        }
-                    }
-                }
-            }
+        this(new TextRankModels(sent, token, stop, exstop));
+    }
+
+    /**
+     * Initialize TextRank with models that are already loaded. All graphs and scores live
+     * on the stack of the calling thread, so one instance can summarize on several threads at once.
+     * @param models shared OpenNLP models and stopword lists
+     */
+    public TextRank(TextRankModels models) {
+        this.models = models;
+    }
+
+    /**
+     * Runs sentence detection, punctuation removal, tokenization and lowercasing over an article
+     * once. The result can be passed to both sentenceExtraction and keywordExtraction.
+     * @param text a body of text
+     * @return the analyzed article
+     */
+    public AnalyzedText analyze(String text){
+        String[] sentences = models.sentenceDetector().sentDetect(text);
+        TokenizerMode tokenizerMode = this.tokenizerMode;
+        //Tokens are mapped to int ids once per article so the rankers compare primitives
+        TokenDictionary dictionary = new TokenDictionary();
+        String[][] sentenceTokens = new String[sentences.length][];
+        int[][] sentenceTerms = new int[sentences.length][];
+        int tokenCount = 0;
+        for(int i = 0; i < sentences.length; i++){
+            sentenceTerms[i] = internTokens(tokenizerMode, models, sentences[i], dictionary);
+            sentenceTokens[i] = dictionary.tokens(sentenceTerms[i]);
+            tokenCount += sentenceTerms[i].length;
         }
+        //Keep the reading order of every token before sorting each sentence's ids
+        int[] tokenIds = new int[tokenCount];
+        int[] tokenOffsets = new int[tokenCount];
+        int k = 0;
+        for(int i = 0; i < sentences.length; i++){
+            System.arraycopy(sentenceTerms[i], 0, tokenIds, k, sentenceTerms[i].length);
+            alignTokens(sentences[i], sentenceTokens[i], tokenOffsets, k);
+            k += sentenceTerms[i].length;
+            Arrays.sort(sentenceTerms[i]);
+        }
+        //Look up both stoplists once per distinct token
+        boolean[] stopwordIds = new boolean[dictionary.size()];
+        boolean[] extendedStopwordIds = new boolean[dictionary.size()];
+        for(int id = 0; id < dictionary.size(); id++){
+            String token = dictionary.token(id);
+            stopwordIds[id] = models.stopwords().contains(token);
+            extendedStopwordIds[id] = models.extendedStopwords().contains(token);
+        }
+        return new AnalyzedText(sentences, sentenceTokens, sentenceTerms, tokenIds, tokenOffsets, dictionary, stopwordIds, extendedStopwordIds);
     }
 
     /**
-     * Calculates the edge-weight between two vertices according to the algorithm
-     * given in section 4.1 of the TextRank paper to find similarities between sentences.
-     * @param v1 the first vertex
-     * @param v2 the vertex to compare for similarities
-     * @return a similarity score
+     * Removes punctuation from a sentence, lowercases it and tokenizes it
      */
-    private double calculateSimilarity(SentenceVertex v1, SentenceVertex v2){
-        //Use HashSet to ensure efficient intersection of tokens [ O(N) ]
-        String[] s1TokenArray = v1.getTokens();
-        HashSet<String> s1TokenHashSet = v1.getTokensAsHashSet();
-        String[] s2TokenArray = v2.getTokens();
-        //Loop through tokens in second sentence
-        double similarities = 0;
-        for (int i = 0; i < s2TokenArray.length; i++) {
-            String word = s2TokenArray[i];
-            //Check if in first sentence
-            if(s1TokenHashSet.contains(word)){
-                similarities++;
-            }
+    static String[] tokenize(Tokenizer tokenizer, String sentence){
+        String stripped = PUNCTUATION.matcher(sentence).replaceAll("").toLowerCase();
+        return tokenizer.tokenize(stripped);
+    }
+
+    /**
+     * Tokenizes a sentence the way the mode says and interns its tokens
+     * @return ids of the sentence's tokens in reading order
+     */
+    static int[] internTokens(TokenizerMode mode, TextRankModels models, String sentence, TokenDictionary dictionary){
+        if(mode == TokenizerMode.RULE_BASED){
+            return models.ruleBasedTokenizer().intern(sentence, dictionary);
         }
-        int numWordsInSentence1 = s1TokenArray.length;
-        int numWordsInSentence2 = s2TokenArray.length;
-        double similarity = similarities/(Math.log(numWordsInSentence1)+Math.log(numWordsInSentence2));
-        return similarity;
+        return dictionary.intern(tokenize(models.tokenizer(), sentence));
     }
 
     /**
-     * Calculate a ranking score for a given vertex according to the algorithm in
-     * section 2.2 of the PageRank paper
-     * @param vi vertex to calculate score for
-     * @return calculated score
+     * Finds where each token of a sentence starts in the sentence as written. Both are walked
+     * in step: punctuation is skipped, as tokenizing dropped it, and a token never runs past
+     * whitespace, so a token whose case folding changed its length can't shift the next one.
+     * @param sentence a sentence as written
+     * @param tokens its lowercased tokens without punctuation, in reading order
+     * @param offsets receives the offset of tokens[t] at offsets[from + t]; the sentence
+     *                length if the token couldn't be found
      */
-    private double calculateScore(SentenceVertex vi){
-        double scorei = (1.0 - PROBABILITY);
-        double sum = 0;
-        //Iterate over edges of vi
-        for(DefaultWeightedEdge eij: graph.edgesOf(vi)){
-            double numerator = graph.getEdgeWeight(eij);
-            //Get other vertex
-            SentenceVertex vj = graph.getEdgeSource(eij);
-            if(vi == vj){
-                vj = graph.getEdgeTarget(eij);
+    static void alignTokens(String sentence, String[] tokens, int[] offsets, int from){
+        int cursor = 0;
+        for(int t = 0; t < tokens.length; t++){
+            //Skip to the first char the token was made from
+            while(cursor < sentence.length()){
+                int c = sentence.codePointAt(cursor);
+                if(!isSpace(c) && !RuleBasedTokenizer.isPunctuation(Character.getType(c))){
+                    break;
+                }
+                cursor += Character.charCount(c);
             }
-            //Sum the denominator
-            double denominator = 0;
-            for(DefaultWeightedEdge ejk: graph.edgesOf(vj)){
-                denominator += graph.getEdgeWeight(ejk);
+            offsets[from + t] = cursor;
+            int consumed = 0;
+            while(cursor < sentence.length() && consumed < tokens[t].length()){
+                int c = sentence.codePointAt(cursor);
+                if(isSpace(c)){
+                    break;
+                }
+                if(!RuleBasedTokenizer.isPunctuation(Character.getType(c))){
+                    consumed += Character.charCount(Character.toLowerCase(c));
+                }
+                cursor += Character.charCount(c);
             }
-            double scorej = vj.getScore();
-            sum += (numerator/denominator)*scorej;
         }
-        scorei += PROBABILITY *sum;
-        return scorei;
+    }
+
+    private static boolean isSpace(int c){
+        return Character.isWhitespace(c) || Character.getType(c) == Character.SPACE_SEPARATOR;
     }
 
     /**
-     * Method that repeatedly calculates scores until error is below the threshold
-     * recommended in the PageRank paper, 0.001 (Supposing that this is percent error of 0.1%)
+     * Starts a ranking that is fed one paragraph at a time, for showing a provisional summary
+     * before the whole article is available. The current similarity, convergence policy,
+     * solver and tokenizer mode are used for the whole stream.
+     * @return an empty incremental ranking
      */
-    private void convergeScores(){
-        double error = 1;
-        int iterations = 0;
-        while(error > CONVERGENCE_THRESHOLD){
-            for(SentenceVertex v : graph.vertexSet()){
-                double newScore = calculateScore(v);
-                double lastScore = v.getScore();
-                double scoreError = Math.abs(lastScore - newScore)/newScore;
-                error += scoreError;
-                v.setScore(newScore);
-            }
-            error = error/(double)(graph.vertexSet().size());
-            iterations +=1;
+    public IncrementalTextRank incremental(){
+        return new IncrementalTextRank(this, models, similarity, convergencePolicy, solver, tokenizerMode);
+    }
+
+    /**
+     * Creates a TextRank graph from an analyzed article. Vertex i of the graph is the i-th sentence.
+     * @param text the analyzed article
+     * @return the sentence graph
+     */
+    private CsrGraph createGraph(AnalyzedText text){
+        int sentenceCount = text.getSentenceCount();
+        ExecutorService graphExecutor = this.graphExecutor;
+        SentenceSimilarity.Scorer scorer = similarity.prepare(text.toSentenceTerms());
+        if(graphMode == GraphMode.INVERTED_INDEX){
+            //Only pairs that share a term are scored, with overlaps counted from the postings
+            return InvertedIndexGraphBuilder.build(sentenceCount, text.getVocabularySize(), scorer);
+        }
+        else if(graphExecutor != null) {
+            //Create edges, visiting each unordered pair of sentences once (upper triangle)
+            return PairwiseGraphBuilder.build(sentenceCount, scorer, graphExecutor);
+        }
+        else {
+            return PairwiseGraphBuilder.build(sentenceCount, scorer);
         }
-        Log.v("TextRank", iterations + "");
+    }
+
+    /**
+     * Runs the weighted PageRank iteration from section 2.2 of the TextRank paper over the
+     * sentence graph until the convergence policy is satisfied.
+     * @param graph the sentence graph
+     * @return the score of each sentence
+     */
+    private double[] convergeScores(CsrGraph graph){
+        double[] scores = new double[graph.vertexCount];
+        Arrays.fill(scores, 1.0);
+        ConvergenceResult result = PowerIteration.iterate(graph, scores, PROBABILITY, convergencePolicy, solver);
+        Log.v("TextRank", "Sentence ranking: " + result);
+        lastSentenceConvergence.set(result);
+        return scores;
+    }
+
+    /**
+     * Creates the vertex for a sentence of the article
+     */
+    private SentenceVertex sentenceVertex(AnalyzedText text, int i, double score){
+        SentenceVertex v = new SentenceVertex(text.getSentence(i), text.getSentenceTokens(i), text.getSentenceTerms(i));
+        v.setScore(score);
+        return v;
     }
 
     /**
@@ -192,116 +214,406 @@ public class TextRank {
 
      */
     public ArrayList<SentenceVertex> sentenceExtraction(String text){
-        createGraph(text);
-        convergeScores();
-        ArrayList<SentenceVertex> sorted = new ArrayList<SentenceVertex>();
-        sorted.addAll(graph.vertexSet());
+        return sentenceExtraction(analyze(text));
+    }
+
+    /**
+     * Returns the full TextRank-processed sentence list of an article that was already analyzed.
+     * Callers that only need the best few sentences should use topSentences.
+     * @param text result of analyze
+     * @return Ordered ArrayList of sentence Strings
+     */
+    public ArrayList<SentenceVertex> sentenceExtraction(AnalyzedText text){
+        double[] scores = convergeScores(createGraph(text));
+        ArrayList<SentenceVertex> sorted = new ArrayList<SentenceVertex>(scores.length);
+        for(int i = 0; i < scores.length; i++){
+            sorted.add(sentenceVertex(text, i, scores[i]));
+        }
         Collections.sort(sorted, new SentenceVertexComparator());
         return sorted;
     }
 
     /**
-     * Creates a graph of tokens for TextRank keyword extraction.
-     * @param article Text with which to create a graph
+     * Returns the k best sentences, selected with a bounded heap in O(n log k) instead of sorting them all.
+     * @param text Text to be processed
+     * @param k number of sentences to return
+     * @param documentOrder if true the sentences are returned in the order they appear in the text,
+     *                      otherwise best first
+     * @return at most k sentences
      */
-    private void createTokenGraph(String article){
-        //Remove all punctuation and lowercase for tokenization
-        article = article.replaceAll("\\p{P}", "").toLowerCase();
-        tokenGraph =  new SimpleGraph<TokenVertex, DefaultEdge>(DefaultEdge.class);
-        String[] tokens = tokenizer.tokenize(article);
-        ArrayList<String> tokensWithoutStopWords = new ArrayList<String>();
-        for(int i = 0; i < tokens.length; i ++){
-            String curToken = tokens[i];
-            if(!extendedStopwords.contains(curToken)){
-                tokensWithoutStopWords.add(curToken);
-            }
+    public ArrayList<SentenceVertex> topSentences(String text, int k, boolean documentOrder){
+        return topSentences(analyze(text), k, documentOrder);
+    }
+
+    /**
+     * Returns the k best sentences of an article that was already analyzed.
+     * @param text result of analyze
+     * @param k number of sentences to return
+     * @param documentOrder if true the sentences are returned in the order they appear in the text,
+     *                      otherwise best first
+     * @return at most k sentences
+     */
+    public ArrayList<SentenceVertex> topSentences(AnalyzedText text, int k, boolean documentOrder){
+        double[] scores = convergeScores(createGraph(text));
+        int[] selected = documentOrder ? TopK.selectInOrder(scores, k) : TopK.select(scores, k);
+        ArrayList<SentenceVertex> result = new ArrayList<SentenceVertex>(selected.length);
+        for(int i: selected){
+            result.add(sentenceVertex(text, i, scores[i]));
         }
-        //HashSet optimizes removing duplicates
-        HashSet<String> lhsTokens = new HashSet<String>(tokensWithoutStopWords);
-        //Map String values to their vertices
-        HashMap<String, TokenVertex> tokenVertices = new HashMap<String,TokenVertex>();
-        //Add each vertex
-        for(String token: lhsTokens){
-            TokenVertex v = new TokenVertex(token);
-            tokenVertices.put(token, v);
-            tokenGraph.addVertex(v);
-        }
-        //Add edges between words within a certain window
-        for(int i = 0; i < tokensWithoutStopWords.size() - COOCCURENCE_WINDOW; i++){
-            String[] window = new String[COOCCURENCE_WINDOW];
-            for(int j = 0; j < COOCCURENCE_WINDOW; j++){
-                String curToken = tokensWithoutStopWords.get(i+j);
-                window[j] = curToken;
-                for(int k = 0; k < j; k++){
-                    String other = window[k];
-                    TokenVertex otherVertex = tokenVertices.get(other);
-                    TokenVertex curVertex = tokenVertices.get(curToken);
-                    if (curVertex != otherVertex && !tokenGraph.containsEdge(curVertex,otherVertex))
-                        tokenGraph.addEdge(curVertex, otherVertex);
-                }
-            }
+        return result;
+    }
+
+    /**
+     * Builds an extractive summary: sentences are picked greedily by TextRank score, with a
+     * penalty for overlapping sentences already picked (maximal marginal relevance), until
+     * either limit is reached.
+     * @param text result of analyze
+     * @param maxSentences most sentences in the summary
+     * @param maxCharacters character budget; the best sentence is always included
+     * @return the picked sentences in reading order
+     */
+    public ArrayList<SentenceVertex> summarize(AnalyzedText text, int maxSentences, int maxCharacters){
+        return summarize(text, maxSentences, maxCharacters, DEFAULT_MMR_LAMBDA);
+    }
+
+    /**
+     * Builds an extractive summary with maximal marginal relevance.
+     * @param text result of analyze
+     * @param maxSentences most sentences in the summary
+     * @param maxCharacters character budget; the best sentence is always included
+     * @param lambda between 0 and 1; 1 ranks by score alone, lower values penalize redundancy more
+     * @return the picked sentences in reading order
+     */
+    public ArrayList<SentenceVertex> summarize(AnalyzedText text, int maxSentences, int maxCharacters, double lambda){
+        if(!(lambda >= 0 && lambda <= 1)){
+            throw new IllegalArgumentException("lambda must be between 0 and 1: " + lambda);
+        }
+        CsrGraph graph = createGraph(text);
+        double[] scores = convergeScores(graph);
+        int[] lengths = new int[scores.length];
+        for(int i = 0; i < lengths.length; i++){
+            lengths[i] = text.getSentence(i).length();
         }
+        ArrayList<SentenceVertex> summary = new ArrayList<SentenceVertex>();
+        for(int i: SummaryBuilder.select(graph, scores, lengths, maxSentences, maxCharacters, lambda)){
+            summary.add(sentenceVertex(text, i, scores[i]));
+        }
+        return summary;
     }
 
     /**
-     * Method for calculating token score
-     * Note the difference between this and the method for calculating
-     * SentenceVertex scores. The SentenceVertex graph has edge weights,
-     * which changes the algorithm significantly.
-     * @param vi The vertex whose score will be computed
-     * @return The calculated score
+     * Creates a graph of tokens for TextRank keyword extraction. Every distinct token that isn't
+     * a stopword becomes a vertex, numbered in order of first appearance.
+     * @param text the analyzed article with which to create a graph
+     * @param candidates whether each position of getTokenIds() may be a vertex, or null for all
+     * @param tokenVertices filled with the vertex for each vertex id
+     * @param vertexIds filled with the vertex id of each token id, or -1 for stopwords
+     * @return the co-occurrence graph
      */
-    private double calculateTokenScore(TokenVertex vi){
-        double scorei = (1.0 - PROBABILITY);
-        double sum = 0;
-        //Iterate over edges of vi
-        for(DefaultEdge eij: tokenGraph.edgesOf(vi)){
-            double numerator = 1.0;
-            //Get other vertex
-            TokenVertex vj = tokenGraph.getEdgeSource(eij);
-            if(vi == vj){
-                vj = tokenGraph.getEdgeTarget(eij);
+    private CsrGraph createTokenGraph(AnalyzedText text, boolean[] candidates, ArrayList<TokenVertex> tokenVertices, int[] vertexIds){
+        int[] tokens = text.getTokenIds();
+        //Map token ids to vertex ids, dropping stopwords (and, if filtering, everything but nouns and adjectives)
+        Arrays.fill(vertexIds, -1);
+        int[] tokensWithoutStopWords = new int[tokens.length];
+        int count = 0;
+        for(int i = 0; i < tokens.length; i ++){
+            int id = tokens[i];
+            if(!text.isExtendedStopword(id) && (candidates == null || candidates[i])){
+                if(vertexIds[id] < 0){
+                    vertexIds[id] = tokenVertices.size();
+                    tokenVertices.add(new TokenVertex(text.getToken(id)));
+                }
+                tokensWithoutStopWords[count++] = vertexIds[id];
             }
-            //Find the denominator
-            double denominator = tokenGraph.edgesOf(vj).size();
-            double scorej = vj.getScore();
-            sum += (numerator/denominator)*scorej;
         }
-        scorei += PROBABILITY *sum;
-        return scorei;
+        //Add edges between words within a certain window, weighted by how often they co-occur
+        return CooccurrenceGraphBuilder.build(Arrays.copyOf(tokensWithoutStopWords, count), tokenVertices.size(), cooccurrenceWindow);
     }
 
+    /**
+     * @return for every position of getTokenIds(), whether it is a noun or adjective, or null
+     * if the part-of-speech filter is off
+     */
+    private boolean[] partOfSpeechCandidates(AnalyzedText text){
+        return partOfSpeechFilter ? tagNounsAndAdjectives(text) : null;
+    }
 
     /**
-     * Method that repeatedly calculates scores until error is below the threshold
-     * recommended in the PageRank paper, 0.001 (Supposing that this is percent error of 0.1%)
+     * Tags every sentence with the part-of-speech model and marks the nouns and adjectives.
+     * The model was trained on cased, punctuated text, so it tags each sentence as written,
+     * tokenized by OpenNLP; "U.S." is then a proper noun rather than the pronoun "us". Each
+     * normalized token takes the tag of the word its first char belongs to.
+     * @param text the analyzed article
+     * @return for every position of getTokenIds(), whether that token is a noun or adjective
      */
-    private void convergeTokenScores(){
-        double error = 1;
-        int iterations = 0;
-        while(error > CONVERGENCE_THRESHOLD){
-            for(TokenVertex v : tokenGraph.vertexSet()){
-                double newScore = calculateTokenScore(v);
-                double lastScore = v.getScore();
-                double scoreError = Math.abs(lastScore - newScore)/newScore;
-                error += scoreError;
-                v.setScore(newScore);
+    private boolean[] tagNounsAndAdjectives(AnalyzedText text){
+        TextRankModels.PosTagger tagger = models.posTagger();
+        Tokenizer tokenizer = models.tokenizer();
+        boolean[] candidates = new boolean[text.getTokenCount()];
+        for(int s = 0; s < text.getSentenceCount(); s++){
+            String sentence = text.getSentence(s);
+            Span[] words = tokenizer.tokenizePos(sentence);
+            String[] tags = tagger.tag(Span.spansToStrings(words, sentence));
+            int w = 0;
+            for(int i = text.getSentenceStart(s); i < text.getSentenceEnd(s); i++){
+                int offset = text.getTokenOffset(i);
+                while(w < words.length && words[w].getEnd() <= offset){
+                    w++;
+                }
+                if(w == words.length){
+                    break;
+                }
+                //Penn Treebank tags: NN, NNS, NNP, NNPS, JJ, JJR, JJS
+                candidates[i] = words[w].getStart() <= offset && (tags[w].startsWith("NN") || tags[w].startsWith("JJ"));
             }
-            error = error/(double)(tokenGraph.vertexSet().size());
-            iterations +=1;
         }
-        Log.v("TextRank", iterations+"");
+        return candidates;
+    }
+
+    /**
+     * Ranks the token graph with the same weighted iteration as sentences, where the
+     * weight of an edge is the number of times its two tokens co-occur.
+     * @param tokenGraph the co-occurrence graph
+     * @param tokenVertices the vertices, in graph order
+     * @return the score of each vertex
+     */
+    private double[] convergeTokenScores(CsrGraph tokenGraph, ArrayList<TokenVertex> tokenVertices){
+        double[] scores = new double[tokenVertices.size()];
+        Arrays.fill(scores, 1.0);
+        ConvergenceResult result = PowerIteration.iterate(tokenGraph, scores, PROBABILITY, convergencePolicy, solver);
+        for(int i = 0; i < scores.length; i++){
+            tokenVertices.get(i).setScore(scores[i]);
+        }
+        Log.v("TextRank", "Keyword ranking: " + result);
+        lastKeywordConvergence.set(result);
+        return scores;
     }
 
+    /**
+     * Client method that returns the TextRank-processed keyword list.
+     * @param text Text to be processed
+     * @return ArrayList of keywords, best first
+     */
     public ArrayList<TokenVertex> keywordExtraction(String text){
-        createTokenGraph(text);
-        convergeTokenScores();
+        return keywordExtraction(analyze(text));
+    }
+
+    /**
+     * Returns the TextRank-processed keyword list of an article that was already analyzed.
+     * @param text result of analyze
+     * @return ArrayList of keywords, best first
+     */
+    public ArrayList<TokenVertex> keywordExtraction(AnalyzedText text){
         ArrayList<TokenVertex> sorted = new ArrayList<TokenVertex>();
-        sorted.addAll(tokenGraph.vertexSet());
+        CsrGraph tokenGraph = createTokenGraph(text, partOfSpeechCandidates(text), sorted, new int[text.getVocabularySize()]);
+        convergeTokenScores(tokenGraph, sorted);
         Collections.sort(sorted, new TokenVertexComparator());
         return sorted;
     }
 
+    /**
+     * Returns the k best keywords, selected with a bounded heap in O(n log k) instead of sorting them all.
+     * @param text Text to be processed
+     * @param k number of keywords to return
+     * @return at most k keywords, best first
+     */
+    public ArrayList<TokenVertex> topKeywords(String text, int k){
+        return topKeywords(analyze(text), k);
+    }
+
+    /**
+     * Returns the k best keywords of an article that was already analyzed.
+     * @param text result of analyze
+     * @param k number of keywords to return
+     * @return at most k keywords, best first
+     */
+    public ArrayList<TokenVertex> topKeywords(AnalyzedText text, int k){
+        ArrayList<TokenVertex> tokenVertices = new ArrayList<TokenVertex>();
+        CsrGraph tokenGraph = createTokenGraph(text, partOfSpeechCandidates(text), tokenVertices, new int[text.getVocabularySize()]);
+        double[] scores = convergeTokenScores(tokenGraph, tokenVertices);
+        ArrayList<TokenVertex> result = new ArrayList<TokenVertex>(Math.min(Math.max(k, 0), scores.length));
+        for(int i: TopK.select(scores, k)){
+            result.add(tokenVertices.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Ranks keywords and then collapses adjacent top-ranked words of the article into
+     * multi-word keyphrases, using the top third of the words as candidates like the TextRank paper.
+     * @param text result of analyze
+     * @return ArrayList of keyphrases, best first
+     */
+    public ArrayList<Keyphrase> keyphraseExtraction(AnalyzedText text){
+        return keyphraseExtraction(text, -1);
+    }
+
+    /**
+     * Ranks keywords and then collapses adjacent top-ranked words of the article into
+     * multi-word keyphrases. A phrase scores the sum of its words' scores.
+     * @param text result of analyze
+     * @param candidates how many of the best words may form phrases, or -1 for a third of all words
+     * @return ArrayList of keyphrases, best first
+     */
+    public ArrayList<Keyphrase> keyphraseExtraction(AnalyzedText text, int candidates){
+        ArrayList<TokenVertex> tokenVertices = new ArrayList<TokenVertex>();
+        int[] vertexIds = new int[text.getVocabularySize()];
+        //A word that is tagged as a noun in one place and a verb in another only joins phrases as a noun
+        boolean[] positions = partOfSpeechCandidates(text);
+        CsrGraph tokenGraph = createTokenGraph(text, positions, tokenVertices, vertexIds);
+        double[] scores = convergeTokenScores(tokenGraph, tokenVertices);
+        if(candidates < 0){
+            candidates = Math.max(1, scores.length / 3);
+        }
+        return KeyphraseCollapser.collapse(text, positions, vertexIds, scores, candidates);
+    }
+
+    /**
+     * Sets the policy (residual norm, tolerance and iteration cap) used by both rankers
+     * @param policy the policy to use for subsequent extractions
+     */
+    public void setConvergencePolicy(ConvergencePolicy policy){
+        if(policy == null){
+            throw new IllegalArgumentException("policy must not be null");
+        }
+        convergencePolicy = policy;
+    }
+
+    public ConvergencePolicy getConvergencePolicy(){
+        return convergencePolicy;
+    }
+
+    /**
+     * Chooses between Jacobi and Gauss-Seidel updates for both rankers
+     * @param solver the update order to use for subsequent extractions
+     */
+    public void setSolver(Solver solver){
+        if(solver == null){
+            throw new IllegalArgumentException("solver must not be null");
+        }
+        this.solver = solver;
+    }
+
+    public Solver getSolver(){
+        return solver;
+    }
+
+    /**
+     * Opt in to computing sentence similarities in parallel. The pair space is split into
+     * row blocks that run on the given executor (a ForkJoinPool works too where it is
+     * available); the resulting graph and ranking are the same as on the serial path.
+     * @param executor executor for graph construction, or null to build on the calling thread
+     */
+    public void setGraphExecutor(ExecutorService executor){
+        graphExecutor = executor;
+    }
+
+    /**
+     * Chooses how the sentence graph is built. INVERTED_INDEX only scores sentence pairs
+     * that share a token and ignores the graph executor.
+     * @param mode graph construction mode for subsequent extractions
+     */
+    public void setGraphMode(GraphMode mode){
+        if(mode == null){
+            throw new IllegalArgumentException("mode must not be null");
+        }
+        graphMode = mode;
+    }
+
+    public GraphMode getGraphMode(){
+        return graphMode;
+    }
+
+    /**
+     * Chooses how sentences are tokenized. OPENNLP is the default; RULE_BASED skips the
+     * regex and the maximum entropy tokenizer and allocates far less per article.
+     * @param mode tokenizer mode for subsequent analyses
+     */
+    public void setTokenizerMode(TokenizerMode mode){
+        if(mode == null){
+            throw new IllegalArgumentException("mode must not be null");
+        }
+        tokenizerMode = mode;
+    }
+
+    public TokenizerMode getTokenizerMode(){
+        return tokenizerMode;
+    }
+
+    /**
+     * Chooses the similarity used as the edge weight between sentences. The default is the
+     * overlap measure of the TextRank paper; new OverlapSimilarity(true), Bm25Similarity and
+     * TfIdfCosineSimilarity ignore stopwords, which gives a sparser graph.
+     * @param similarity similarity function for subsequent extractions
+     */
+    public void setSimilarity(SentenceSimilarity similarity){
+        if(similarity == null){
+            throw new IllegalArgumentException("similarity must not be null");
+        }
+        this.similarity = similarity;
+    }
+
+    public SentenceSimilarity getSimilarity(){
+        return similarity;
+    }
+
+    /**
+     * Sets the co-occurrence window for keyword extraction: tokens fewer than window
+     * positions apart (after stopword removal) are connected. Larger windows give denser
+     * graphs; the default of 2 only connects neighbors.
+     * @param window window size, from 2 to 10
+     */
+    public void setCooccurrenceWindow(int window){
+        if(window < CooccurrenceGraphBuilder.MIN_WINDOW || window > CooccurrenceGraphBuilder.MAX_WINDOW){
+            throw new IllegalArgumentException("Co-occurrence window must be between "
+                    + CooccurrenceGraphBuilder.MIN_WINDOW + " and " + CooccurrenceGraphBuilder.MAX_WINDOW + ": " + window);
+        }
+        cooccurrenceWindow = window;
+    }
+
+    public int getCooccurrenceWindow(){
+        return cooccurrenceWindow;
+    }
+
+    /**
+     * Restricts keyword candidates to nouns and adjectives, as suggested by the TextRank paper.
+     * This needs a part-of-speech model, which is loaded the first time it's used.
+     * @param enabled whether to filter keyword candidates by part of speech
+     * @throws IllegalStateException if enabling it when the models have no part-of-speech model
+     */
+    public void setPartOfSpeechFilter(boolean enabled){
+        if(enabled && !models.hasPosModel()){
+            throw new IllegalStateException("No part-of-speech model was supplied");
+        }
+        partOfSpeechFilter = enabled;
+    }
+
+    public boolean isPartOfSpeechFilter(){
+        return partOfSpeechFilter;
+    }
+
+    /**
+     * Getter for how the last sentence ranking on the calling thread converged. Every overload
+     * of sentenceExtraction, topSentences and summarize sets it; IncrementalTextRank keeps its
+     * own, in getLastConvergence. The value is not safe to use across calls: the next of those
+     * calls on this thread overwrites it, and rankings on other threads never show up here,
+     * so read it right after the call it should describe.
+     * @return iteration count, residual and timing, or null if this thread hasn't ranked sentences yet
+     */
+    public ConvergenceResult getLastSentenceConvergence(){
+        return lastSentenceConvergence.get();
+    }
+
+    /**
+     * Getter for how the last keyword ranking on the calling thread converged. Every overload
+     * of keywordExtraction, topKeywords and keyphraseExtraction sets it. Like
+     * getLastSentenceConvergence, the next of those calls on this thread overwrites it.
+     * @return iteration count, residual and timing, or null if this thread hasn't ranked keywords yet
+     */
+    public ConvergenceResult getLastKeywordConvergence(){
+        return lastKeywordConvergence.get();
+    }
+
     /**
      * Custom comparator for sorting SentenceVertices
      */
@@ -357,17 +669,19 @@ public class TextRank {
 
         private String sentence;
         private String[] tokens;
-        private HashSet<String> tokenHashSet;
+        private int[] termIds;
         private double score;
 
         /**
          * Constructor for SentenceVertex. Initializes fields.
          * @param s String sentence
+         * @param t tokens of the sentence
+         * @param ids sorted ids of the tokens in the article's token dictionary
          */
-        public SentenceVertex(String s, String[] t){
+        public SentenceVertex(String s, String[] t, int[] ids){
             sentence = s;
             tokens = t;
-            tokenHashSet = new HashSet<String>(Arrays.asList(t));
+            termIds = ids;
             score = 1.0;
         }
 
@@ -390,11 +704,11 @@ public class TextRank {
 
 
         /**
-         * Returns the tokens of this sentence
-         * @return Array of token strings
+         * Returns the ids of the tokens of this sentence
+         * @return Sorted array of token ids, duplicates included
          */
-        public HashSet<String> getTokensAsHashSet() {
-            return tokenHashSet;
+        public int[] getTermIds() {
+            return termIds;
         }
 
         /**
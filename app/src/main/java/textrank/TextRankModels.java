@@ -0,0 +1,212 @@
+package textrank;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import opennlp.tools.postag.POSModel;
+import opennlp.tools.postag.POSTaggerME;
+import opennlp.tools.sentdetect.SentenceDetectorME;
+import opennlp.tools.sentdetect.SentenceModel;
+import opennlp.tools.tokenize.Tokenizer;
+import opennlp.tools.tokenize.TokenizerME;
+import opennlp.tools.tokenize.TokenizerModel;
+
+/**
+ * The immutable data TextRank needs: the OpenNLP sentence and tokenizer models and the
+ * two stopword lists. One instance can be shared by any number of TextRank instances and
+ * threads. The OpenNLP ME wrappers are not thread-safe, so each thread gets its own,
+ * created on first use from the shared models. The optional part-of-speech model is only
+ * read the first time a tagger is needed.
+ */
+public final class TextRankModels {
+
+    /**
+     * Opens the stream of a model that is loaded lazily
+     */
+    public interface ModelSource {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Tags the words of one sentence with Penn Treebank tags. In the app this wraps the
+     * OpenNLP tagger; tests can supply their own, since no tagger model ships with the app.
+     */
+    interface PosTagger {
+        String[] tag(String[] words);
+    }
+
+    private final SentenceModel sentenceModel;
+    private final TokenizerModel tokenizerModel;
+    private final StopwordTrie stopwords;
+    private final StopwordTrie extendedStopwords;
+    private final ModelSource posModelSource;
+    //Used on every thread instead of the OpenNLP tagger when it is not null
+    private final PosTagger fixedPosTagger;
+    private volatile POSModel posModel;
+
+    private final ThreadLocal<SentenceDetectorME> sentenceDetectors = new ThreadLocal<SentenceDetectorME>() {
+        @Override
+        protected SentenceDetectorME initialValue() {
+            return new SentenceDetectorME(sentenceModel);
+        }
+    };
+
+    private final ThreadLocal<Tokenizer> tokenizers = new ThreadLocal<Tokenizer>() {
+        @Override
+        protected Tokenizer initialValue() {
+            return new TokenizerME(tokenizerModel);
+        }
+    };
+
+    private final ThreadLocal<RuleBasedTokenizer> ruleBasedTokenizers = new ThreadLocal<RuleBasedTokenizer>() {
+        @Override
+        protected RuleBasedTokenizer initialValue() {
+            return new RuleBasedTokenizer();
+        }
+    };
+
+    private final ThreadLocal<PosTagger> posTaggers = new ThreadLocal<PosTagger>() {
+        @Override
+        protected PosTagger initialValue() {
+            if (fixedPosTagger != null) {
+                return fixedPosTagger;
+            }
+            final POSTaggerME tagger = new POSTaggerME(posModel());
+            return new PosTagger() {
+                @Override
+                public String[] tag(String[] words) {
+                    return tagger.tag(words);
+                }
+            };
+        }
+    };
+
+    /**
+     * Loads the models and stopword lists. All four streams are closed.
+     * @param sent OpenNLP sentence detector model
+     * @param token OpenNLP tokenizer model
+     * @param stop stopword list, one word per line
+     * @param exstop extended stopword list used for keywords, one word per line
+     */
+    public TextRankModels(InputStream sent, InputStream token, InputStream stop, InputStream exstop) throws IOException {
+        this(sent, token, stop, exstop, null);
+    }
+
+    /**
+     * Loads the models and stopword lists. All four streams are closed.
+     * @param sent OpenNLP sentence detector model
+     * @param token OpenNLP tokenizer model
+     * @param stop stopword list, one word per line
+     * @param exstop extended stopword list used for keywords, one word per line
+     * @param pos source of the OpenNLP part-of-speech model, opened on first use; may be null
+     */
+    public TextRankModels(InputStream sent, InputStream token, InputStream stop, InputStream exstop,
+                          ModelSource pos) throws IOException {
+        this(sent, token, StopwordTrie.readWordList(stop), StopwordTrie.readWordList(exstop), pos);
+    }
+
+    /**
+     * Loads the models, taking stopword lists that were compiled at build time. Both streams are closed.
+     * @param sent OpenNLP sentence detector model
+     * @param token OpenNLP tokenizer model
+     * @param stop stopwords
+     * @param exstop extended stopwords used for keywords
+     * @param pos source of the OpenNLP part-of-speech model, opened on first use; may be null
+     */
+    public TextRankModels(InputStream sent, InputStream token, StopwordTrie stop, StopwordTrie exstop,
+                          ModelSource pos) throws IOException {
+        this(sent, token, stop, exstop, pos, null);
+    }
+
+    /**
+     * Loads the models with a part-of-speech tagger that is already built, which every thread
+     * shares. Both streams are closed.
+     * @param tagger a thread-safe tagger
+     */
+    TextRankModels(InputStream sent, InputStream token, StopwordTrie stop, StopwordTrie exstop,
+                   PosTagger tagger) throws IOException {
+        this(sent, token, stop, exstop, null, tagger);
+    }
+
+    private TextRankModels(InputStream sent, InputStream token, StopwordTrie stop, StopwordTrie exstop,
+                           ModelSource pos, PosTagger tagger) throws IOException {
+        posModelSource = pos;
+        fixedPosTagger = tagger;
+        sentenceModel = new SentenceModel(sent);
+        sent.close();
+        tokenizerModel = new TokenizerModel(token);
+        token.close();
+        stopwords = stop;
+        extendedStopwords = exstop;
+    }
+
+    /**
+     * @return the sentence detector of the calling thread
+     */
+    SentenceDetectorME sentenceDetector() {
+        return sentenceDetectors.get();
+    }
+
+    /**
+     * @return the tokenizer of the calling thread
+     */
+    Tokenizer tokenizer() {
+        return tokenizers.get();
+    }
+
+    /**
+     * @return the rule-based tokenizer of the calling thread
+     */
+    RuleBasedTokenizer ruleBasedTokenizer() {
+        return ruleBasedTokenizers.get();
+    }
+
+    /**
+     * @return whether a part-of-speech model was supplied
+     */
+    public boolean hasPosModel() {
+        return posModelSource != null || fixedPosTagger != null;
+    }
+
+    /**
+     * @return the part-of-speech tagger of the calling thread, loading the model if this is the first use
+     * @throws IllegalStateException if no model was supplied or it couldn't be read
+     */
+    PosTagger posTagger() {
+        return posTaggers.get();
+    }
+
+    private POSModel posModel() {
+        POSModel model = posModel;
+        if (model == null) {
+            synchronized (this) {
+                model = posModel;
+                if (model == null) {
+                    if (posModelSource == null) {
+                        throw new IllegalStateException("No part-of-speech model was supplied");
+                    }
+                    try {
+                        InputStream in = posModelSource.open();
+                        try {
+                            model = new POSModel(in);
+                        } finally {
+                            in.close();
+                        }
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Couldn't load the part-of-speech model", e);
+                    }
+                    posModel = model;
+                }
+            }
+        }
+        return model;
+    }
+
+    StopwordTrie stopwords() {
+        return stopwords;
+    }
+
+    StopwordTrie extendedStopwords() {
+        return extendedStopwords;
+    }
+}
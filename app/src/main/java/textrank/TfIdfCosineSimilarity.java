@@ -0,0 +1,80 @@
+package textrank;
+
+/**
+ * Cosine similarity between the TF-IDF vectors of two sentences, treating every
+ * sentence of the article as a document. Stopwords are ignored.
+ */
+public class TfIdfCosineSimilarity implements SentenceSimilarity {
+
+    @Override
+    public Scorer prepare(SentenceTerms sentences) {
+        int n = sentences.getSentenceCount();
+        final int[][] terms = new int[n][];
+        for (int i = 0; i < n; i++) {
+            terms[i] = sentences.getContentTerms(i);
+        }
+        int[] df = sentences.documentFrequencies(terms);
+        final double[] idf = new double[df.length];
+        for (int t = 0; t < df.length; t++) {
+            //Smoothed so that a term found in every sentence still carries some weight
+            idf[t] = df[t] == 0 ? 0 : 1 + Math.log((double) n / df[t]);
+        }
+        //Vector lengths, computed once per sentence
+        final double[] norms = new double[n];
+        for (int i = 0; i < n; i++) {
+            int[] sentence = terms[i];
+            double sum = 0;
+            for (int k = 0; k < sentence.length; ) {
+                int term = sentence[k];
+                int tf = 0;
+                while (k < sentence.length && sentence[k] == term) {
+                    tf++;
+                    k++;
+                }
+                double w = tf * idf[term];
+                sum += w * w;
+            }
+            norms[i] = Math.sqrt(sum);
+        }
+        return new Scorer() {
+            @Override
+            public int[] terms(int sentence) {
+                return terms[sentence];
+            }
+
+            @Override
+            public double similarity(int i, int j) {
+                if (norms[i] == 0 || norms[j] == 0) {
+                    return 0;
+                }
+                int[] s1 = terms[i];
+                int[] s2 = terms[j];
+                double dot = 0;
+                int p = 0;
+                int q = 0;
+                while (p < s1.length && q < s2.length) {
+                    int a = s1[p];
+                    int c = s2[q];
+                    if (a < c) {
+                        p++;
+                    } else if (a > c) {
+                        q++;
+                    } else {
+                        int tf1 = 0;
+                        while (p < s1.length && s1[p] == a) {
+                            tf1++;
+                            p++;
+                        }
+                        int tf2 = 0;
+                        while (q < s2.length && s2[q] == a) {
+                            tf2++;
+                            q++;
+                        }
+                        dot += tf1 * tf2 * idf[a] * idf[a];
+                    }
+                }
+                return dot / (norms[i] * norms[j]);
+            }
+        };
+    }
+}
@@ -0,0 +1,151 @@
+package textrank;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Maps the distinct tokens of one document to dense int ids (0, 1, 2, ...) in order
+ * of first appearance, so that later stages can compare tokens as primitives.
+ * Tokens are found with open addressing over the token chars, so a token can be looked
+ * up from a span of a char[] without making a String of it first.
+ */
+final class TokenDictionary {
+    private final ArrayList<String> tokens = new ArrayList<String>();
+    //id + 1 of the token in each slot, 0 if the slot is empty; the length is a power of two
+    private int[] table = new int[64];
+    //hashes[id] caches the hash of that token, for probing and resizing
+    private int[] hashes = new int[32];
+
+    /**
+     * Returns the id of a token, assigning the next free id if it hasn't been seen yet
+     * @param token the token
+     * @return its id
+     */
+    int intern(String token) {
+        int hash = spread(token.hashCode());
+        int mask = table.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return add(slot, hash, token);
+            }
+            if (hashes[entry - 1] == hash && tokens.get(entry - 1).equals(token)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    /**
+     * Returns the id of the token chars[start, end), assigning the next free id if it hasn't
+     * been seen yet. Only a new token is copied into a String.
+     * @param chars text holding the token
+     * @param start index of the token's first char
+     * @param end index after the token's last char
+     * @return its id
+     */
+    int intern(char[] chars, int start, int end) {
+        //Same as String.hashCode, so both intern methods probe the same slots
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + chars[i];
+        }
+        int hash = spread(h);
+        int mask = table.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return add(slot, hash, new String(chars, start, end - start));
+            }
+            if (hashes[entry - 1] == hash && regionEquals(tokens.get(entry - 1), chars, start, end)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    /**
+     * Interns every token of a sentence
+     * @param sentenceTokens tokens of one sentence
+     * @return their ids in reading order
+     */
+    int[] intern(String[] sentenceTokens) {
+        int[] result = new int[sentenceTokens.length];
+        for (int i = 0; i < sentenceTokens.length; i++) {
+            result[i] = intern(sentenceTokens[i]);
+        }
+        return result;
+    }
+
+    /**
+     * @param id a token id
+     * @return the token with that id
+     */
+    String token(int id) {
+        return tokens.get(id);
+    }
+
+    /**
+     * @param ids token ids
+     * @return the token of each id, sharing the dictionary's Strings
+     */
+    String[] tokens(int[] ids) {
+        String[] result = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            result[i] = tokens.get(ids[i]);
+        }
+        return result;
+    }
+
+    /**
+     * @return number of distinct tokens
+     */
+    int size() {
+        return tokens.size();
+    }
+
+    private int add(int slot, int hash, String token) {
+        int id = tokens.size();
+        tokens.add(token);
+        if (id == hashes.length) {
+            hashes = Arrays.copyOf(hashes, id * 2);
+        }
+        hashes[id] = hash;
+        table[slot] = id + 1;
+        //Keep the table at most half full
+        if (2 * tokens.size() > table.length) {
+            rehash(table.length * 2);
+        }
+        return id;
+    }
+
+    private void rehash(int capacity) {
+        int[] grown = new int[capacity];
+        int mask = capacity - 1;
+        for (int id = 0; id < tokens.size(); id++) {
+            int slot = hashes[id] & mask;
+            while (grown[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            grown[slot] = id + 1;
+        }
+        table = grown;
+    }
+
+    private static boolean regionEquals(String token, char[] chars, int start, int end) {
+        if (token.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < token.length(); i++) {
+            if (token.charAt(i) != chars[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Mixes the high bits of a String hash into the low bits used for the slot
+     */
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+}
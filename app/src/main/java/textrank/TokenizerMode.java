@@ -0,0 +1,25 @@
+package textrank;
+
+/**
+ * How sentences are split into lowercased tokens.
+ */
+public enum TokenizerMode {
+    /**
+     * Strip punctuation with a regex, lowercase the sentence and run the OpenNLP maximum
+     * entropy tokenizer over it. Splits symbols and digits from words ("$5" is "$", "5").
+     */
+    OPENNLP,
+    /**
+     * One pass over each sentence that drops punctuation, folds case and splits on
+     * whitespace, interning tokens straight from a reused buffer. Produces far less garbage
+     * per article; symbols and digits stay attached to the word they touch.
+     *
+     * Case is folded one char at a time with Character.toLowerCase, which differs from
+     * String.toLowerCase where lowercasing depends on context or changes the length: a final
+     * sigma stays a plain sigma ("&Sigma;&Alpha;&Sigma;" gives "&sigma;&alpha;&sigma;", not
+     * "&sigma;&alpha;&sigmaf;") and a dotted capital I loses its dot ("&#304;stanbul" gives
+     * "istanbul", not "i&#775;stanbul"). Such words get different tokens in the two modes,
+     * and may match the stopword lists in one mode only.
+     */
+    RULE_BASED
+}
@@ -0,0 +1,93 @@
+package textrank;
+
+import java.util.Arrays;
+
+/**
+ * Partial selection of the k best scores with a bounded min-heap of indices, in
+ * O(n log k) time and O(k) extra space. Ties are broken by the lower index, which
+ * matches a stable full sort by descending score.
+ */
+final class TopK {
+
+    private TopK() {
+    }
+
+    /**
+     * @param scores scores to select from
+     * @param k number of indices to return
+     * @return indices of the min(k, n) best scores, best first
+     */
+    static int[] select(double[] scores, int k) {
+        k = Math.max(0, Math.min(k, scores.length));
+        //heap[0] is the worst of the k best seen so far
+        int[] heap = new int[k];
+        int size = 0;
+        for (int i = 0; i < scores.length; i++) {
+            if (size < k) {
+                heap[size] = i;
+                siftUp(heap, size++, scores);
+            } else if (k > 0 && better(i, heap[0], scores)) {
+                heap[0] = i;
+                siftDown(heap, 0, size, scores);
+            }
+        }
+        //Pop the worst repeatedly, filling the result from the back
+        int[] result = new int[size];
+        for (int n = size; n > 0; n--) {
+            result[n - 1] = heap[0];
+            heap[0] = heap[n - 1];
+            siftDown(heap, 0, n - 1, scores);
+        }
+        return result;
+    }
+
+    /**
+     * Same as select, but with the indices in ascending (document) order
+     */
+    static int[] selectInOrder(double[] scores, int k) {
+        int[] result = select(scores, k);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private static boolean better(int a, int b, double[] scores) {
+        int order = Double.compare(scores[a], scores[b]);
+        return order > 0 || (order == 0 && a < b);
+    }
+
+    private static void siftUp(int[] heap, int i, double[] scores) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!better(heap[parent], heap[i], scores)) {
+                break;
+            }
+            swap(heap, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int i, int size, double[] scores) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                break;
+            }
+            int worst = left;
+            int right = left + 1;
+            if (right < size && better(heap[left], heap[right], scores)) {
+                worst = right;
+            }
+            if (!better(heap[i], heap[worst], scores)) {
+                break;
+            }
+            swap(heap, i, worst);
+            i = worst;
+        }
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        int tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+    }
+}
@@ -0,0 +1,391 @@
+package website.jonreynolds.jreynolds.articleate;
+
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import org.jsoup.Connection;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import textrank.IncrementalTextRank;
+import textrank.Keyphrase;
+import textrank.TextRank;
+
+/**
+ * Summarizes articles in five stages: fetch, parse, extract, rank and persist. Each stage
+ * has its own background thread, so while one article is being ranked the next can already
+ * be fetched and parsed. Only the results are posted to the main thread.
+ *
+ * An article that was summarized before is shown from the ResultCache at once. If that
+ * summary is recent, nothing else happens; otherwise the page is fetched and extracted
+ * again, and only ranked again if the hash of its text has changed.
+ */
+final class ArticlePipeline {
+    private static final String TAG = "ArticlePipeline";
+    //Limits for the multi-sentence summary
+    private static final int SUMMARY_SENTENCES = 3;
+    private static final int SUMMARY_CHARACTERS = 500;
+    //Paragraphs read before the first provisional summary is shown; later ones follow each time the count doubles
+    private static final int PROVISIONAL_PARAGRAPHS = 3;
+    private static final int KEYWORD_COUNT = 8;
+    //A summary younger than this is shown without fetching the page again
+    private static final long FRESH_FOR_MILLIS = 15 * 60 * 1000;
+
+    private final Future<TextRank> textRank;
+    private final ExtractionEngine extractionEngine;
+    private final ResultCache resultCache;
+    private final Handler mainThread = new Handler(Looper.getMainLooper());
+    private final ExecutorService fetchStage = stage("fetch");
+    private final ExecutorService parseStage = stage("parse");
+    private final ExecutorService extractStage = stage("extract");
+    private final ExecutorService rankStage = stage("rank");
+    private final ExecutorService persistStage = stage("persist");
+
+    /**
+     * Receives the results of a job on the main thread. Nothing is delivered after the job is cancelled.
+     */
+    interface Listener {
+        /**
+         * @param summary a summary of the paragraphs ranked so far
+         */
+        void onProvisionalSummary(String summary);
+
+        /**
+         * @param summary the finished summary, or the reason the article couldn't be summarized
+         */
+        void onSummary(ArticleSummary summary);
+    }
+
+    /**
+     * One article going through the pipeline. Stages hand it to each other, so its fields
+     * are only touched by one thread at a time.
+     */
+    final class Job {
+        private final String url;
+        private final Listener listener;
+        private volatile boolean cancelled;
+        private Connection.Response response;
+        private Document document;
+        private String author;
+        private String headline;
+        private ArticleText articleText;
+        private long contentHash;
+        //What the last visit to this url produced, if anything
+        private ArticleSummary cached;
+
+        private Job(String url, Listener listener){
+            this.url = url;
+            this.listener = listener;
+        }
+
+        /**
+         * Skips the stages that haven't started yet and drops any result. Call on the main thread.
+         */
+        void cancel(){
+            cancelled = true;
+        }
+    }
+
+    /**
+     * @param textRank ranks the sentences and keyphrases of each article, once its models have loaded
+     * @param extractionEngine finds the article, author and headline on each page
+     * @param resultCache keeps every successful summary
+     */
+    ArticlePipeline(Future<TextRank> textRank, ExtractionEngine extractionEngine, ResultCache resultCache){
+        this.textRank = textRank;
+        this.extractionEngine = extractionEngine;
+        this.resultCache = resultCache;
+    }
+
+    private static ExecutorService stage(final String name){
+        return Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                return new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        r.run();
+                    }
+                }, "Articleate " + name);
+            }
+        });
+    }
+
+    /**
+     * Starts summarizing an article
+     * @param url address of the article
+     * @param listener receives the results on the main thread
+     * @return the job, which can be cancelled
+     */
+    Job submit(String url, Listener listener){
+        Job job = new Job(url, listener);
+        fetchStage.execute(new Fetch(job));
+        return job;
+    }
+
+    /**
+     * A stage of one job. Does nothing once the job is cancelled, and turns a failure into
+     * a summary that explains it, unless a cached summary is already showing.
+     */
+    private abstract class Stage implements Runnable {
+        final Job job;
+        private final String failure;
+
+        Stage(Job job, String failure){
+            this.job = job;
+            this.failure = failure;
+        }
+
+        @Override
+        public final void run(){
+            if(job.cancelled)
+                return;
+            try {
+                process();
+            } catch (IOException e) {
+                Log.w(TAG, failure, e);
+                fail(failure);
+            } catch (RuntimeException e) {
+                Log.w(TAG, failure, e);
+                fail(failure);
+            }
+        }
+
+        abstract void process() throws IOException;
+
+        void fail(String message){
+            if(job.cached == null)
+                publish(new ArticleSummary(job.url, "", "", message, new String[0]));
+        }
+
+        /**
+         * Posts the result of the job to the main thread
+         */
+        void publish(final ArticleSummary summary){
+            mainThread.post(new Runnable() {
+                @Override
+                public void run() {
+                    if(!job.cancelled)
+                        job.listener.onSummary(summary);
+                }
+            });
+        }
+    }
+
+    /**
+     * Downloads the page
+     */
+    private final class Fetch extends Stage {
+        Fetch(Job job){
+            super(job, "Page couldn't be loaded for info extraction.");
+        }
+
+        @Override
+        void process() throws IOException {
+            job.cached = resultCache.get(job.url);
+            if(job.cached != null){
+                //Show what was ranked last time right away
+                publish(job.cached);
+                if(System.currentTimeMillis() - job.cached.getSavedAt() < FRESH_FOR_MILLIS)
+                    return;
+            }
+            Log.v("JSoup", "Attempting to connect to " + job.url);
+            job.response = Jsoup.connect(job.url).execute();
+            parseStage.execute(new Parse(job));
+        }
+    }
+
+    /**
+     * Builds the DOM of the downloaded page
+     */
+    private final class Parse extends Stage {
+        Parse(Job job){
+            super(job, "Page couldn't be loaded for info extraction.");
+        }
+
+        @Override
+        void process() throws IOException {
+            job.document = job.response.parse();
+            job.response = null;
+            Log.v(TAG, "Loaded the page.");
+            extractStage.execute(new Extract(job));
+        }
+    }
+
+    /**
+     * Finds the article, its author and headline, and its paragraphs
+     */
+    private final class Extract extends Stage {
+        Extract(Job job){
+            super(job, "No article could be extracted.");
+        }
+
+        @Override
+        void process(){
+            //One walk over the page finds the article, author and headline
+            ExtractionEngine.Result extracted = extractionEngine.extract(job.document, Uri.parse(job.url).getHost());
+            job.document = null;
+            Element article = extracted.article;
+            if(article == null){
+                fail("No article could be extracted.");
+                return;
+            }
+            if(extracted.author != null){
+                Log.v("Author Information", extracted.author.text());
+                job.author = extracted.author.text();
+            }
+            else{
+                Log.v("Author Information", "Couldn't extract author data");
+                job.author = "Couldn't extract author data.";
+            }
+            if(extracted.headline != null){
+                Log.v("Headline Information", extracted.headline.text());
+                job.headline = extracted.headline.text();
+            }
+            else{
+                Log.v("Headline Information", "Couldn't extract headline data");
+                job.headline = "Couldn't extract headline data";
+            }
+            job.articleText = ArticleText.extract(article);
+            job.contentHash = ArticleSummary.hash(job.articleText.getText());
+            ArticleSummary cached = job.cached;
+            if(cached != null && cached.getContentHash() == job.contentHash){
+                Log.v(TAG, "Article unchanged since it was last summarized");
+                //Only the time it was checked is new
+                persistStage.execute(new Persist(new ArticleSummary(cached.getUrl(), cached.getHeadline(), cached.getAuthor(),
+                        cached.getSummary(), cached.getKeywords(), cached.getContentHash(), System.currentTimeMillis())));
+                return;
+            }
+            rankStage.execute(new Rank(job));
+        }
+    }
+
+    /**
+     * Runs TextRank on the article. Paragraphs are ranked as they are added, so a provisional
+     * summary is published after the first few, unless a cached summary is showing. The final summary comes from the same stream,
+     * warm-started from the last provisional ranking, and the keyphrases from its analyzed text.
+     */
+    private final class Rank extends Stage {
+        Rank(Job job){
+            super(job, "Unable to process this article");
+        }
+
+        @Override
+        void process(){
+            TextRank tr = awaitTextRank();
+            if(tr == null)
+                return;
+            ArticleText articleText = job.articleText;
+            //Sentence detection and tokenization run once per paragraph, shared by every ranking below
+            IncrementalTextRank stream = tr.incremental();
+            int nextProvisional = PROVISIONAL_PARAGRAPHS;
+            for(int i = 0; i < articleText.getParagraphCount() && !job.cancelled; i++){
+                stream.addParagraph(articleText.getParagraph(i));
+                //Doubling the interval keeps the provisional rankings cheaper than the final one.
+                //A cached summary is already showing, and only the final one should replace it
+                if(job.cached == null && i + 1 == nextProvisional && i + 1 < articleText.getParagraphCount()){
+                    ArrayList<TextRank.SentenceVertex> provisional = stream.summarize(SUMMARY_SENTENCES, SUMMARY_CHARACTERS);
+                    if(!provisional.isEmpty())
+                        publishProvisional(joinSentences(provisional));
+                    nextProvisional *= 2;
+                }
+            }
+            if(job.cancelled)
+                return;
+            if(stream.getSentenceCount() == 0){
+                if(job.cached == null)
+                    publish(new ArticleSummary(job.url, job.headline, job.author, "Unable to process this article", new String[0]));
+                return;
+            }
+            //Pick a few high-ranked sentences that don't repeat each other, in reading order
+            ArrayList<TextRank.SentenceVertex> summarySentences = stream.summarize(SUMMARY_SENTENCES, SUMMARY_CHARACTERS);
+            ArrayList<Keyphrase> rankedPhrases = tr.keyphraseExtraction(stream.toAnalyzedText());
+            for(int i = 0; i < summarySentences.size(); i ++){
+                Log.v("Summary Sentence #" + (i+1), summarySentences.get(i).getSentence());
+            }
+            //Get best keyphrases
+            String[] keywords = new String[Math.min(KEYWORD_COUNT, rankedPhrases.size())];
+            for(int i = 0; i < keywords.length; i++){
+                keywords[i] = rankedPhrases.get(i).getPhrase();
+            }
+            ArticleSummary summary = new ArticleSummary(job.url, job.headline, job.author, joinSentences(summarySentences), keywords,
+                    job.contentHash, System.currentTimeMillis());
+            //Show the result without waiting for the disk
+            publish(summary);
+            persistStage.execute(new Persist(summary));
+        }
+
+        /**
+         * @return TextRank, waiting for the models on the first summarization, or null if interrupted
+         */
+        private TextRank awaitTextRank(){
+            try {
+                return textRank.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Couldn't load the TextRank models", e.getCause());
+            }
+        }
+
+        private void publishProvisional(final String provisionalSummary){
+            mainThread.post(new Runnable() {
+                @Override
+                public void run() {
+                    if(!job.cancelled)
+                        job.listener.onProvisionalSummary(provisionalSummary);
+                }
+            });
+        }
+    }
+
+    /**
+     * Saves a successful summary, replacing the url's earlier one. Runs even if the job was
+     * cancelled after ranking.
+     */
+    private final class Persist implements Runnable {
+        private final ArticleSummary summary;
+
+        Persist(ArticleSummary summary){
+            this.summary = summary;
+        }
+
+        @Override
+        public void run(){
+            try {
+                resultCache.put(summary);
+                resultCache.save(summary);
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Couldn't save the summary", e);
+            }
+        }
+    }
+
+    /**
+     * Join summary sentences into one line of text
+     */
+    private static String joinSentences(ArrayList<TextRank.SentenceVertex> sentences){
+        StringBuilder builder = new StringBuilder();
+        for(int i = 0; i < sentences.size(); i++){
+            if(i > 0){
+                builder.append(' ');
+            }
+            builder.append(sentences.get(i).getSentence());
+        }
+        return builder.toString();
+    }
+}
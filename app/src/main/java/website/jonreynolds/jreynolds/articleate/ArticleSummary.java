@@ -0,0 +1,92 @@
+package website.jonreynolds.jreynolds.articleate;
+
+/**
+ * What Articleate shows for one article: its headline, author, summary and keywords.
+ * When the article couldn't be summarized, the summary holds the reason instead.
+ * Successful summaries also carry a hash of the article text they were ranked from, so a
+ * later visit can tell whether the article has changed.
+ */
+final class ArticleSummary {
+    private final String url;
+    private final String headline;
+    private final String author;
+    private final String summary;
+    private final String[] keywords;
+    private final long contentHash;
+    private final long savedAt;
+
+    ArticleSummary(String url, String headline, String author, String summary, String[] keywords){
+        this(url, headline, author, summary, keywords, 0, 0);
+    }
+
+    /**
+     * @param contentHash hash of the article text, from ArticleSummary.hash, or 0 if unknown
+     * @param savedAt when the summary was made, in milliseconds since the epoch, or 0 if unknown
+     */
+    ArticleSummary(String url, String headline, String author, String summary, String[] keywords, long contentHash, long savedAt){
+        this.url = url;
+        this.headline = headline;
+        this.author = author;
+        this.summary = summary;
+        this.keywords = keywords;
+        this.contentHash = contentHash;
+        this.savedAt = savedAt;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of an article's text; cheap enough to run on every visit
+     * @param text extracted article text
+     * @return the hash, never 0
+     */
+    static long hash(CharSequence text){
+        long hash = 0xcbf29ce484222325L;
+        for(int i = 0; i < text.length(); i++){
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    String getUrl(){
+        return url;
+    }
+
+    String getHeadline(){
+        return headline;
+    }
+
+    String getAuthor(){
+        return author;
+    }
+
+    String getSummary(){
+        return summary;
+    }
+
+    /**
+     * @return the best keyphrases, best first; empty if none were extracted
+     */
+    String[] getKeywords(){
+        return keywords;
+    }
+
+    long getContentHash(){
+        return contentHash;
+    }
+
+    long getSavedAt(){
+        return savedAt;
+    }
+
+    /**
+     * @return rough number of bytes this summary occupies on the heap
+     */
+    int estimatedBytes(){
+        int chars = url.length() + headline.length() + author.length() + summary.length();
+        for(String keyword: keywords){
+            chars += keyword.length();
+        }
+        //Two bytes per char plus object and array headers
+        return 2 * chars + 48 * (5 + keywords.length);
+    }
+}
@@ -0,0 +1,232 @@
+package website.jonreynolds.jreynolds.articleate;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The paragraphs of an article joined into one string, with the offset where each paragraph
+ * starts. Every paragraph ends in ". " (or " " if it already ended in a period or quote) so
+ * that sentences of different paragraphs are never detected as one.
+ */
+final class ArticleText {
+    private final String text;
+    private final int[] paragraphStarts;
+
+    private ArticleText(String text, int[] paragraphStarts){
+        this.text = text;
+        this.paragraphStarts = paragraphStarts;
+    }
+
+    /**
+     * Collects the paragraphs of an article in a single walk over its DOM subtree. The text
+     * of the whole article, of its <p> elements and of elements whose class contains
+     * "paragraph" is normalized the way Element.text() does it, all in the same walk. The
+     * <p> paragraphs are used unless they make up no more than 40% of the article's text, in
+     * which case the "paragraph" class elements are used instead.
+     * @param article JSoup article element
+     * @return the article's paragraphs
+     */
+    static ArticleText extract(Element article){
+        final ParagraphWriter paragraphs = new ParagraphWriter(true);
+        final ParagraphWriter classParagraphs = new ParagraphWriter(true);
+        //The whole article is only measured, never stored
+        final ParagraphWriter articleLength = new ParagraphWriter(false);
+        new NodeTraversor(new NodeVisitor() {
+            private Node paragraph;
+            private Node classParagraph;
+
+            public void head(Node node, int depth){
+                if(node instanceof TextNode){
+                    String text = ((TextNode) node).getWholeText();
+                    articleLength.appendText(text);
+                    if(paragraph != null)
+                        paragraphs.appendText(text);
+                    if(classParagraph != null)
+                        classParagraphs.appendText(text);
+                }
+                else if(node instanceof Element){
+                    Element element = (Element) node;
+                    if(element.isBlock() || element.tagName().equals("br")){
+                        articleLength.separate();
+                        if(paragraph != null)
+                            paragraphs.separate();
+                        if(classParagraph != null)
+                            classParagraphs.separate();
+                    }
+                    //Nested matches are already covered by the enclosing paragraph
+                    if(paragraph == null && element.tagName().equals("p")){
+                        paragraph = element;
+                        paragraphs.open();
+                    }
+                    if(classParagraph == null && element.className().toLowerCase(Locale.ENGLISH).contains("paragraph")){
+                        classParagraph = element;
+                        classParagraphs.open();
+                    }
+                }
+            }
+
+            public void tail(Node node, int depth){
+                if(node == paragraph){
+                    paragraph = null;
+                    paragraphs.close();
+                }
+                if(node == classParagraph){
+                    classParagraph = null;
+                    classParagraphs.close();
+                }
+            }
+        }).traverse(article);
+        //If the article <p> elements don't make up most of the text in the article,
+        //hope that they're under the class paragraph (prime example, CNN)
+        if((double)articleLength.length() * 0.4 >= paragraphs.measuredLength()){
+            return classParagraphs.toArticleText();
+        }
+        return paragraphs.toArticleText();
+    }
+
+    /**
+     * @return every paragraph, in order, as one string
+     */
+    String getText(){
+        return text;
+    }
+
+    /**
+     * @return number of paragraphs
+     */
+    int getParagraphCount(){
+        return paragraphStarts.length - 1;
+    }
+
+    /**
+     * @param i index of a paragraph
+     * @return offset in getText() of the paragraph's first character
+     */
+    int getParagraphStart(int i){
+        return paragraphStarts[i];
+    }
+
+    /**
+     * @param i index of a paragraph
+     * @return offset in getText() just past the paragraph's terminating space
+     */
+    int getParagraphEnd(int i){
+        return paragraphStarts[i + 1];
+    }
+
+    /**
+     * @param i index of a paragraph
+     * @return the paragraph's text, including its terminator
+     */
+    String getParagraph(int i){
+        return text.substring(paragraphStarts[i], paragraphStarts[i + 1]);
+    }
+
+    /**
+     * Appends whitespace-normalized paragraphs to one builder. Runs of whitespace become a
+     * single space, leading and trailing whitespace of a paragraph is dropped, and empty
+     * paragraphs are discarded. It also keeps the length Elements.text() would report for
+     * the same paragraphs, without their terminators. A writer that doesn't store its text
+     * only counts the characters it would have written.
+     */
+    private static final class ParagraphWriter {
+        private final StringBuilder text;
+        private int[] starts = new int[16];
+        private int count;
+        private int start;
+        private int written;
+        private boolean lastWasSpace;
+        private int measuredLength;
+
+        ParagraphWriter(boolean store){
+            text = store ? new StringBuilder() : null;
+        }
+
+        void open(){
+            start = written;
+            lastWasSpace = false;
+        }
+
+        private void write(char c){
+            if(text != null)
+                text.append(c);
+            written++;
+        }
+
+        void appendText(String s){
+            for(int i = 0; i < s.length(); i++){
+                char c = s.charAt(i);
+                if(c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f'){
+                    if(written == start || lastWasSpace)
+                        continue;
+                    write(' ');
+                    lastWasSpace = true;
+                }
+                else{
+                    write(c);
+                    lastWasSpace = false;
+                }
+            }
+        }
+
+        /**
+         * A block element or line break starts inside the paragraph
+         */
+        void separate(){
+            if(written > start && !lastWasSpace){
+                write(' ');
+                lastWasSpace = true;
+            }
+        }
+
+        /**
+         * Ends the current paragraph; only for writers that store their text
+         */
+        void close(){
+            if(lastWasSpace)
+                text.setLength(--written);
+            int length = written - start;
+            //Joined with single spaces once anything has been written, as Elements.text() does
+            if(measuredLength > 0)
+                measuredLength++;
+            measuredLength += length;
+            if(length == 0)
+                return;
+            //End all sentences with periods so as to ensure sentence separation
+            //Otherwise, sentences will appear concatenated
+            char last = text.charAt(text.length() - 1);
+            if(last == '.' || last == '"')
+                text.append(' ');
+            else
+                text.append(". ");
+            written = text.length();
+            if(count + 1 == starts.length)
+                starts = Arrays.copyOf(starts, starts.length * 2);
+            starts[count++] = start;
+            lastWasSpace = true;
+        }
+
+        /**
+         * @return length of everything appended, trailing whitespace excluded
+         */
+        int length(){
+            return lastWasSpace ? written - 1 : written;
+        }
+
+        int measuredLength(){
+            return measuredLength;
+        }
+
+        ArticleText toArticleText(){
+            int[] paragraphStarts = Arrays.copyOf(starts, count + 1);
+            paragraphStarts[count] = text.length();
+            return new ArticleText(text.toString(), paragraphStarts);
+        }
+    }
+}
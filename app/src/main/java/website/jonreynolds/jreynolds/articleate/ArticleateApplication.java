@@ -0,0 +1,15 @@
+package website.jonreynolds.jreynolds.articleate;
+
+import android.app.Application;
+
+/**
+ * Starts loading the TextRank models as soon as the process starts
+ */
+public class ArticleateApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        ModelRegistry.preload(this);
+    }
+}
@@ -0,0 +1,419 @@
+package website.jonreynolds.jreynolds.articleate;
+
+import android.util.Log;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Finds the article, author and headline elements of a page with cascades of
+ * ExtractionRules. Every rule is evaluated during one walk over the document, and the outcome
+ * of each field for a host, either the rule that won or a marker saying no rule matched, is
+ * remembered in a small properties file. Once the article rule of a host is cached, the walk
+ * only evaluates that rule, the cascade of each other field up to its cached rule and the
+ * whole cascade of a field that isn't cached yet or was cached as unmatched, and stops as
+ * soon as every field is settled. A field that found nothing on one page may still be found
+ * on the next, so an unmatched field is always looked for again. If a cached rule no longer
+ * matches, the full cascade runs again.
+ * The cached article rule is trusted while it matches, even on a page where an earlier rule
+ * of its cascade would also have matched, since pages of one site share their layout; given
+ * that article, author and headline are always what their full cascades would find.
+ */
+final class ExtractionEngine {
+    private static final String TAG = "ExtractionEngine";
+    //The cache is cleared once it holds this many entries, rather than tracking recency
+    private static final int MAX_CACHED_ENTRIES = 600;
+    //Cached for a field none of the host's rules matched; rule ids never start with "!"
+    private static final String NO_MATCH = "!none";
+    private static final ExtractionRule.Field[] FIELDS = ExtractionRule.Field.values();
+    private final List<ExtractionRule> rules;
+    private final File cacheFile;
+    private Properties cache;
+
+    /**
+     * @param rules every rule, in cascade order within each field; host-specific rules are
+     *              tried before generic ones
+     * @param cacheFile file holding the winning rule of each host and field
+     */
+    ExtractionEngine(List<ExtractionRule> rules, File cacheFile){
+        this.rules = new ArrayList<ExtractionRule>(rules);
+        this.cacheFile = cacheFile;
+    }
+
+    /**
+     * @return the cascades Articleate has always used, starting specific because some
+     * websites have smaller pseudo articles at the top of the page
+     */
+    static ArrayList<ExtractionRule> defaultRules(){
+        ArrayList<ExtractionRule> rules = new ArrayList<ExtractionRule>();
+        rules.add(ExtractionRule.tag(ExtractionRule.Field.ARTICLE, ExtractionRule.Scope.IN_MAIN, "article"));
+        rules.add(ExtractionRule.tag(ExtractionRule.Field.ARTICLE, ExtractionRule.Scope.DOCUMENT, "article"));
+        rules.add(ExtractionRule.classContaining(ExtractionRule.Field.ARTICLE, ExtractionRule.Scope.DOCUMENT, "article"));
+        rules.add(ExtractionRule.classContaining(ExtractionRule.Field.ARTICLE, ExtractionRule.Scope.DOCUMENT, "story"));
+        rules.add(ExtractionRule.classContaining(ExtractionRule.Field.AUTHOR, ExtractionRule.Scope.IN_ARTICLE, "byline"));
+        rules.add(ExtractionRule.classContaining(ExtractionRule.Field.AUTHOR, ExtractionRule.Scope.IN_ARTICLE, "author"));
+        rules.add(ExtractionRule.classContaining(ExtractionRule.Field.AUTHOR, ExtractionRule.Scope.DOCUMENT, "byline"));
+        rules.add(ExtractionRule.classContaining(ExtractionRule.Field.AUTHOR, ExtractionRule.Scope.DOCUMENT, "author"));
+        rules.add(ExtractionRule.classContaining(ExtractionRule.Field.HEADLINE, ExtractionRule.Scope.IN_ARTICLE, "headline"));
+        rules.add(ExtractionRule.classContaining(ExtractionRule.Field.HEADLINE, ExtractionRule.Scope.IN_ARTICLE, "title"));
+        rules.add(ExtractionRule.classContaining(ExtractionRule.Field.HEADLINE, ExtractionRule.Scope.DOCUMENT, "headline"));
+        rules.add(ExtractionRule.classContaining(ExtractionRule.Field.HEADLINE, ExtractionRule.Scope.DOCUMENT, "title"));
+        return rules;
+    }
+
+    /**
+     * The elements found on a page; any of them may be null
+     */
+    static final class Result {
+        final Element article;
+        final Element author;
+        final Element headline;
+
+        private Result(Element[] found){
+            article = found[ExtractionRule.Field.ARTICLE.ordinal()];
+            author = found[ExtractionRule.Field.AUTHOR.ordinal()];
+            headline = found[ExtractionRule.Field.HEADLINE.ordinal()];
+        }
+    }
+
+    /**
+     * Finds the article, author and headline of a page. Author and headline are only looked
+     * for if an article is found. Safe to call from any thread.
+     * @param document the parsed page
+     * @param host host the page was loaded from, or null to bypass the cache
+     * @return the elements found
+     */
+    Result extract(Document document, String host){
+        List<ExtractionRule> candidates = rulesFor(host);
+        String[] cached = cachedIds(host);
+        ExtractionRule articleRule = cached == null ? null : ruleWithId(candidates, ExtractionRule.Field.ARTICLE, cached[0]);
+        if(articleRule != null){
+            //The article rule comes first, so the other rules see the article it matches
+            ArrayList<ExtractionRule> known = new ArrayList<ExtractionRule>();
+            known.add(articleRule);
+            boolean[] trusted = new boolean[FIELDS.length];
+            for(ExtractionRule.Field field: FIELDS){
+                String id = cached[field.ordinal()];
+                if(field == ExtractionRule.Field.ARTICLE)
+                    continue;
+                //Null for NO_MATCH, so the field's whole cascade is evaluated
+                ExtractionRule rule = ruleWithId(candidates, field, id);
+                trusted[field.ordinal()] = rule != null;
+                //The rules before the cached one still take precedence, as in the full cascade
+                for(ExtractionRule candidate: candidates){
+                    if(candidate.field != field)
+                        continue;
+                    known.add(candidate);
+                    if(candidate == rule)
+                        break;
+                }
+            }
+            Walk walk = new Walk(known.toArray(new ExtractionRule[known.size()]), articleRule);
+            walk.run(document);
+            Element[] found = new Element[FIELDS.length];
+            ExtractionRule[] winners = new ExtractionRule[FIELDS.length];
+            boolean matched = true;
+            for(int r = 0; r < walk.rules.length; r++){
+                int f = walk.rules[r].field.ordinal();
+                if(found[f] == null && walk.first[r] != null){
+                    found[f] = walk.first[r];
+                    winners[f] = walk.rules[r];
+                }
+            }
+            for(ExtractionRule.Field field: FIELDS){
+                if(found[field.ordinal()] == null && (field == ExtractionRule.Field.ARTICLE || trusted[field.ordinal()]))
+                    matched = false;
+            }
+            if(matched){
+                remember(host, winners, found);
+                return new Result(found);
+            }
+            Log.v(TAG, "Cached rules no longer match " + host);
+        }
+
+        Walk walk = new Walk(candidates.toArray(new ExtractionRule[candidates.size()]), null);
+        walk.run(document);
+        Element[] found = new Element[FIELDS.length];
+        ExtractionRule[] winners = new ExtractionRule[FIELDS.length];
+        //The article has to be chosen first, since the other cascades may be scoped to it
+        for(ExtractionRule.Field field: FIELDS){
+            Element article = found[ExtractionRule.Field.ARTICLE.ordinal()];
+            if(field != ExtractionRule.Field.ARTICLE && article == null)
+                break;
+            for(int r = 0; r < walk.rules.length && found[field.ordinal()] == null; r++){
+                ExtractionRule rule = walk.rules[r];
+                if(rule.field == field){
+                    found[field.ordinal()] = walk.match(r, article);
+                    winners[field.ordinal()] = rule;
+                }
+            }
+        }
+        remember(host, winners, found);
+        return new Result(found);
+    }
+
+    /**
+     * @return the rules that apply to a host, host-specific ones first
+     */
+    private List<ExtractionRule> rulesFor(String host){
+        ArrayList<ExtractionRule> result = new ArrayList<ExtractionRule>();
+        for(ExtractionRule rule: rules){
+            if(rule.host != null && rule.host.equals(host))
+                result.add(rule);
+        }
+        for(ExtractionRule rule: rules){
+            if(rule.host == null)
+                result.add(rule);
+        }
+        return result;
+    }
+
+    private static String cacheKey(String host, ExtractionRule.Field field){
+        return host + "/" + field.name().toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * @return the rule of a field with the given id, or null if there is none
+     */
+    private static ExtractionRule ruleWithId(List<ExtractionRule> candidates, ExtractionRule.Field field, String id){
+        if(id == null)
+            return null;
+        for(ExtractionRule rule: candidates){
+            if(rule.field == field && rule.id.equals(id))
+                return rule;
+        }
+        return null;
+    }
+
+    /**
+     * @return the cached entry of each field of the host, which is a rule id, NO_MATCH or
+     * null if the field isn't cached; null if the host bypasses the cache
+     */
+    private synchronized String[] cachedIds(String host){
+        if(host == null)
+            return null;
+        loadCache();
+        String[] cached = new String[FIELDS.length];
+        for(ExtractionRule.Field field: FIELDS)
+            cached[field.ordinal()] = cache.getProperty(cacheKey(host, field));
+        return cached;
+    }
+
+    /**
+     * Stores the outcome of every field, writing the file only if an entry changed. When no
+     * article was found the other fields weren't looked for, so the host is forgotten instead.
+     */
+    private synchronized void remember(String host, ExtractionRule[] winners, Element[] found){
+        if(host == null)
+            return;
+        loadCache();
+        boolean changed = false;
+        boolean hasArticle = found[ExtractionRule.Field.ARTICLE.ordinal()] != null;
+        //Clear before any entry is written, so a host is never left half cached
+        if(hasArticle && cache.size() + FIELDS.length > MAX_CACHED_ENTRIES
+                && cache.getProperty(cacheKey(host, ExtractionRule.Field.ARTICLE)) == null){
+            cache.clear();
+            changed = true;
+        }
+        for(ExtractionRule.Field field: FIELDS){
+            String key = cacheKey(host, field);
+            if(!hasArticle){
+                changed |= cache.remove(key) != null;
+                continue;
+            }
+            String id = found[field.ordinal()] != null ? winners[field.ordinal()].id : NO_MATCH;
+            if(!id.equals(cache.getProperty(key))){
+                cache.setProperty(key, id);
+                changed = true;
+            }
+        }
+        if(changed)
+            saveCache();
+    }
+
+    private void loadCache(){
+        if(cache != null)
+            return;
+        cache = new Properties();
+        if(!cacheFile.exists())
+            return;
+        try {
+            InputStream in = new BufferedInputStream(new FileInputStream(cacheFile));
+            try {
+                cache.load(in);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Couldn't read the extraction rule cache", e);
+            cache.clear();
+        }
+    }
+
+    private void saveCache(){
+        try {
+            OutputStream out = new BufferedOutputStream(new FileOutputStream(cacheFile));
+            try {
+                cache.store(out, null);
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Couldn't write the extraction rule cache", e);
+        }
+    }
+
+    /**
+     * One depth-first pass over the document, in the same order as jsoup's NodeTraversor,
+     * recording what every rule matches. When the article rule is known in advance, rules
+     * scoped to the article are settled during the walk, which stops once nothing is left
+     * to find. Otherwise every match of an article-scoped rule is kept until the article
+     * has been chosen.
+     */
+    private static final class Walk {
+        final ExtractionRule[] rules;
+        //First match of each rule
+        final Element[] first;
+        private final ArrayList<Element>[] matches;
+        //Index of the article rule when it is known in advance, otherwise -1
+        private final int articleRule;
+        private final boolean matchClasses;
+        private int mainDepth;
+        private boolean articleClosed;
+
+        @SuppressWarnings("unchecked")
+        Walk(ExtractionRule[] rules, ExtractionRule articleRule){
+            this.rules = rules;
+            first = new Element[rules.length];
+            matches = new ArrayList[rules.length];
+            int articleIndex = -1;
+            boolean matchClasses = false;
+            for(int r = 0; r < rules.length; r++){
+                if(rules[r] == articleRule)
+                    articleIndex = r;
+                else if(articleRule == null && rules[r].scope == ExtractionRule.Scope.IN_ARTICLE)
+                    matches[r] = new ArrayList<Element>();
+                matchClasses |= rules[r].matchesClass();
+            }
+            this.articleRule = articleIndex;
+            this.matchClasses = matchClasses;
+        }
+
+        void run(Node root){
+            Node node = root;
+            int depth = 0;
+            while(node != null){
+                if(node instanceof Element && head((Element) node))
+                    return;
+                if(node.childNodeSize() > 0){
+                    node = node.childNode(0);
+                    depth++;
+                }
+                else{
+                    while(node.nextSibling() == null && depth > 0){
+                        if(tail(node))
+                            return;
+                        node = node.parentNode();
+                        depth--;
+                    }
+                    if(tail(node) || node == root)
+                        return;
+                    node = node.nextSibling();
+                }
+            }
+        }
+
+        /**
+         * @return whether the walk can stop
+         */
+        private boolean head(Element element){
+            if(element.tagName().equals("main"))
+                mainDepth++;
+            String lowerClassName = null;
+            if(matchClasses && element.hasAttr("class"))
+                lowerClassName = element.attr("class").toLowerCase(Locale.ENGLISH);
+            for(int r = 0; r < rules.length; r++){
+                ExtractionRule rule = rules[r];
+                if(first[r] != null || !rule.matches(element, lowerClassName))
+                    continue;
+                if(rule.scope == ExtractionRule.Scope.IN_ARTICLE){
+                    if(matches[r] != null)
+                        matches[r].add(element);
+                    else if(article() != null && !articleClosed)
+                        first[r] = element;
+                }
+                else if(rule.scope == ExtractionRule.Scope.DOCUMENT || mainDepth > 0){
+                    first[r] = element;
+                }
+            }
+            return finished();
+        }
+
+        /**
+         * @return whether the walk can stop
+         */
+        private boolean tail(Node node){
+            if(node instanceof Element && ((Element) node).tagName().equals("main"))
+                mainDepth--;
+            if(node != null && node == article()){
+                articleClosed = true;
+                return finished();
+            }
+            return false;
+        }
+
+        private Element article(){
+            return articleRule < 0 ? null : first[articleRule];
+        }
+
+        /**
+         * Only a walk over known rules finishes early, once the first rule of each field's
+         * cascade that can still match has matched; a full cascade needs every match
+         */
+        private boolean finished(){
+            if(articleRule < 0)
+                return false;
+            ExtractionRule.Field settled = null;
+            for(int r = 0; r < rules.length; r++){
+                if(rules[r].field == settled)
+                    continue;
+                if(first[r] != null)
+                    settled = rules[r].field;
+                else if(!(rules[r].scope == ExtractionRule.Scope.IN_ARTICLE && articleClosed))
+                    return false;
+            }
+            return true;
+        }
+
+        /**
+         * @param r index of a rule
+         * @param article the chosen article, for rules scoped to it
+         * @return what the rule matched, or null
+         */
+        Element match(int r, Element article){
+            if(matches[r] == null)
+                return first[r];
+            for(Element element: matches[r]){
+                for(Node n = element; n != null; n = n.parentNode()){
+                    if(n == article)
+                        return element;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package website.jonreynolds.jreynolds.articleate;
+
+import org.jsoup.nodes.Element;
+
+/**
+ * One step of an extraction cascade: the first element with a given tag, or whose class
+ * contains a given fragment, within some scope of the page. Rules are identified by a
+ * CSS-like id (for example "article [class*=byline]"), which is what the per-host cache stores.
+ */
+final class ExtractionRule {
+
+    /**
+     * The piece of information a rule finds
+     */
+    enum Field { ARTICLE, AUTHOR, HEADLINE }
+
+    /**
+     * Where on the page a rule looks
+     */
+    enum Scope {
+        //Anywhere in the document
+        DOCUMENT,
+        //Inside a <main> element
+        IN_MAIN,
+        //Inside, or at, the article element chosen for the page
+        IN_ARTICLE
+    }
+
+    final String id;
+    final Field field;
+    final Scope scope;
+    //Only applies to pages of this host, or to every page if null
+    final String host;
+    private final String tag;
+    private final String classFragment;
+
+    private ExtractionRule(Field field, Scope scope, String host, String tag, String classFragment){
+        if(field == Field.ARTICLE && scope == Scope.IN_ARTICLE)
+            throw new IllegalArgumentException("An article rule can't be scoped to the article");
+        this.field = field;
+        this.scope = scope;
+        this.host = host;
+        this.tag = tag;
+        this.classFragment = classFragment;
+        String selector = tag != null ? tag : "[class*=" + classFragment + "]";
+        if(scope == Scope.IN_MAIN)
+            id = "main " + selector;
+        else if(scope == Scope.IN_ARTICLE)
+            id = "article " + selector;
+        else
+            id = selector;
+    }
+
+    /**
+     * @return a rule matching elements by tag name
+     */
+    static ExtractionRule tag(Field field, Scope scope, String tag){
+        return new ExtractionRule(field, scope, null, tag, null);
+    }
+
+    /**
+     * @return a rule matching elements whose class attribute contains a fragment, ignoring case
+     */
+    static ExtractionRule classContaining(Field field, Scope scope, String fragment){
+        return new ExtractionRule(field, scope, null, null, fragment.toLowerCase());
+    }
+
+    /**
+     * @param host a host name, such as "www.cnn.com"
+     * @return the same rule, tried before the generic ones and only on pages of that host
+     */
+    ExtractionRule forHost(String host){
+        return new ExtractionRule(field, scope, host, tag, classFragment);
+    }
+
+    /**
+     * @return whether this rule is a class rule, so that callers only lowercase class names when needed
+     */
+    boolean matchesClass(){
+        return classFragment != null;
+    }
+
+    /**
+     * @param element an element of the page
+     * @param lowerClassName the element's class attribute, lowercased, or null if no class rule is being evaluated
+     * @return whether the element itself matches, regardless of scope
+     */
+    boolean matches(Element element, String lowerClassName){
+        if(tag != null)
+            return element.tagName().equals(tag);
+        return lowerClassName != null && lowerClassName.contains(classFragment);
+    }
+
+    @Override
+    public String toString(){
+        return host == null ? id : host + ": " + id;
+    }
+}
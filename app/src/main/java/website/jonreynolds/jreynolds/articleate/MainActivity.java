@@ -4,6 +4,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.graphics.Typeface;
 import android.net.Uri;
+import android.os.AsyncTask;
 import android.os.Bundle;
 import android.support.design.widget.FloatingActionButton;
 import android.support.design.widget.Snackbar;
@@ -26,21 +27,9 @@ import android.widget.TextView;
 
 import org.w3c.dom.Text;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.LineNumberReader;
-import java.io.PrintWriter;
 import java.util.ArrayList;
-import java.util.Collections;
 
 public class MainActivity extends AppCompatActivity {
-    private final int MAX_NUM_SUMMARIES = 20;
-    private final int LINES_PER_SUMMARY = 4;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -65,60 +54,33 @@ public class MainActivity extends AppCompatActivity {
             }
         });
 
-        try {
-            loadCachedSummaries();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        new LoadSummariesTask().execute();
     }
 
     /**
-     * Loads saved summaries (summaries that were completed succesfully)
-     * @throws IOException
+     * An AsyncTask to read the saved summaries off the main thread. Opening the store the
+     * first time also creates the database and imports the legacy summary file.
      */
-    private void loadCachedSummaries() throws IOException {
-        File cachedSummaries = new File(getCacheDir(), "summaries.txt");
-
-        //Count number of lines
-        LineNumberReader  lnr = new LineNumberReader(new FileReader(cachedSummaries));
-        lnr.skip(Long.MAX_VALUE);
-        int numLines = lnr.getLineNumber() + 1; //Add 1 because line index starts at 0
-        // Finally, the LineNumberReader object should be closed to prevent resource leak
-        lnr.close();
-
-        //Create ArrayList to hold summaries
-        ArrayList<String[]> summaries = new ArrayList<>();
-
-        //Maintain cache to last MAX_NUM_SUMMARIES summaries and add those to ArrayList
-        File tempFile = new File(getCacheDir(), "myTempFile.txt");
-        BufferedReader reader = new BufferedReader(new FileReader(cachedSummaries));
-        PrintWriter writer = new PrintWriter(new FileWriter(tempFile));
-
-        String currentLine;
-        int currentLineNum = 1;
-        int i = 0;
-        String[] currentStringArray = new String[4];
-        while ((currentLine = reader.readLine()) != null) {
-            if(numLines - currentLineNum <= MAX_NUM_SUMMARIES*LINES_PER_SUMMARY){
-                writer.println(currentLine);
-                currentStringArray[i%LINES_PER_SUMMARY] = currentLine;
-                if(i%LINES_PER_SUMMARY == LINES_PER_SUMMARY-1){
-                    summaries.add(currentStringArray);
-                    currentStringArray = new String[4];
-                }
-                i++;
-            }
-            currentLineNum+=1;
+    private class LoadSummariesTask extends AsyncTask<Void, Void, ArrayList<ArticleSummary>> {
+
+        @Override
+        protected ArrayList<ArticleSummary> doInBackground(Void... params) {
+            return SummaryStore.get(MainActivity.this).newest(0, SummaryStore.MAX_SUMMARIES);
         }
-        writer.close();
-        reader.close();
-        boolean successful = tempFile.renameTo(cachedSummaries);
 
-        //Make newest lines first
-        Collections.reverse(summaries);
+        @Override
+        protected void onPostExecute(ArrayList<ArticleSummary> summaries) {
+            if(!isFinishing())
+                showCachedSummaries(summaries);
+        }
+    }
 
+    /**
+     * Shows saved summaries (summaries that were completed succesfully), newest first
+     */
+    private void showCachedSummaries(ArrayList<ArticleSummary> summaries) {
         //Populate the TextViews
-        ArrayAdapter<String[]> summaryListViewAdapter = new ArrayAdapter<String[]>(this, R.layout.list_item_summary, R.id.list_item_summary_textview, summaries){
+        ArrayAdapter<ArticleSummary> summaryListViewAdapter = new ArrayAdapter<ArticleSummary>(this, R.layout.list_item_summary, R.id.list_item_summary_textview, summaries){
             @Override
             public View getView (int position, View convertView, ViewGroup parent){
                 if(convertView == null) {
@@ -126,29 +88,16 @@ public class MainActivity extends AppCompatActivity {
                     convertView = vi.inflate(R.layout.list_item_summary, null);
                 }
                 TextView tv = (TextView)convertView.findViewById(R.id.list_item_summary_textview);
-                String[] summaryLines = getItem(position);
-                //Build the inner text of the TextView
+                ArticleSummary summary = getItem(position);
+                //Build the inner text of the TextView: bold italic headline, summary, italic author
                 SpannableStringBuilder summaryItemText  = new SpannableStringBuilder();
-                for(int i = 0 ; i < summaryLines.length; i++){
-                    switch (i){
-                        case 0: {
-                            summaryItemText.append(summaryLines[i] + "\n");
-                            summaryItemText.setSpan(new android.text.style.StyleSpan(Typeface.BOLD_ITALIC), 0, summaryItemText.length(), Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
-                        } break;
-
-                        case 1: {
-                            summaryItemText.append(summaryLines[i] + "\n");
-                        } break;
-
-                        case 2: {
-                            summaryItemText.append(summaryLines[i]);
-                            summaryItemText.setSpan(new android.text.style.StyleSpan(android.graphics.Typeface.ITALIC), summaryItemText.length() - summaryLines[i].length(), summaryItemText.length(), Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
-                        } break;
-
-                    }
-                }
+                summaryItemText.append(summary.getHeadline() + "\n");
+                summaryItemText.setSpan(new android.text.style.StyleSpan(Typeface.BOLD_ITALIC), 0, summaryItemText.length(), Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
+                summaryItemText.append(summary.getSummary() + "\n");
+                summaryItemText.append(summary.getAuthor());
+                summaryItemText.setSpan(new android.text.style.StyleSpan(android.graphics.Typeface.ITALIC), summaryItemText.length() - summary.getAuthor().length(), summaryItemText.length(), Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
                 //Set the TextView to navigate back to the article on-click
-                final String url = summaryLines[LINES_PER_SUMMARY-1];
+                final String url = summary.getUrl();
                 tv.setText(summaryItemText);
                 tv.setOnClickListener(new View.OnClickListener() {
 
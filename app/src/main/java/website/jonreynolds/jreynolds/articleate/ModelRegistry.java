@@ -0,0 +1,109 @@
+package website.jonreynolds.jreynolds.articleate;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.os.Process;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import textrank.StopwordTrie;
+import textrank.TextRank;
+import textrank.TextRankModels;
+import textrank.TokenizerMode;
+
+/**
+ * Loads the OpenNLP models and stopword lists once per process, on a background thread
+ * started when the application is created, so that no activity has to wait for them
+ * before drawing. Code that needs TextRank waits on the future. A model that can't be
+ * loaded means a broken build, so the loading thread rethrows the error and the app stops
+ * instead of running without a summarizer.
+ */
+final class ModelRegistry {
+    private static final String TAG = "ModelRegistry";
+    //Name of the optional raw resource holding the OpenNLP part-of-speech model (en-pos-maxent.bin)
+    private static final String POS_MODEL_RESOURCE = "en_pos_maxent";
+    private static FutureTask<TextRank> textRank;
+
+    private ModelRegistry(){
+    }
+
+    /**
+     * Starts loading the models unless that has already happened. Call from Application.onCreate.
+     * @param context any context of the app
+     */
+    static synchronized void preload(Context context){
+        if(textRank != null)
+            return;
+        final Resources resources = context.getApplicationContext().getResources();
+        final String packageName = context.getPackageName();
+        textRank = new FutureTask<TextRank>(new Callable<TextRank>() {
+            @Override
+            public TextRank call() throws IOException {
+                return load(resources, packageName);
+            }
+        });
+        final FutureTask<TextRank> task = textRank;
+        Thread loader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                long start = System.nanoTime();
+                task.run();
+                try {
+                    task.get();
+                    Log.v(TAG, "Models loaded in " + (System.nanoTime() - start) / 1000000 + "ms");
+                } catch (ExecutionException e) {
+                    Log.e(TAG, "Couldn't load the TextRank models", e.getCause());
+                    throw new IllegalStateException("Couldn't load the TextRank models", e.getCause());
+                } catch (InterruptedException e) {
+                    //The task has already run, so get() doesn't block
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, "Articleate models");
+        loader.start();
+    }
+
+    /**
+     * @return TextRank, once its models have loaded
+     * @throws IllegalStateException if preload hasn't been called
+     */
+    static synchronized Future<TextRank> textRank(){
+        if(textRank == null)
+            throw new IllegalStateException("ModelRegistry.preload hasn't been called");
+        return textRank;
+    }
+
+    /**
+     * Open raw resources to initialize OpenNLP tools for TextRank
+     */
+    private static TextRank load(final Resources resources, String packageName) throws IOException {
+        InputStream sent = resources.openRawResource(R.raw.en_sent);
+        InputStream token = resources.openRawResource(R.raw.en_token);
+        //The stopword tries are generated from src/main/stopwords at build time
+        StopwordTrie stop = StopwordTrie.read(resources.openRawResource(R.raw.stopwords_trie));
+        StopwordTrie exstop = StopwordTrie.read(resources.openRawResource(R.raw.extended_stopwords_trie));
+        //The part-of-speech model is optional; it's only read once keywords are first ranked
+        final int posModel = resources.getIdentifier(POS_MODEL_RESOURCE, "raw", packageName);
+        TextRankModels.ModelSource pos = null;
+        if(posModel != 0){
+            pos = new TextRankModels.ModelSource() {
+                @Override
+                public InputStream open() {
+                    return resources.openRawResource(posModel);
+                }
+            };
+        }
+        TextRank tr = new TextRank(new TextRankModels(sent, token, stop, exstop, pos));
+        tr.setPartOfSpeechFilter(pos != null);
+        //Splitting on whitespace is enough for article text, and much cheaper than TokenizerME
+        tr.setTokenizerMode(TokenizerMode.RULE_BASED);
+        return tr;
+    }
+}
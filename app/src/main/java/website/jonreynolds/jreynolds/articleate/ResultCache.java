@@ -0,0 +1,54 @@
+package website.jonreynolds.jreynolds.articleate;
+
+import android.util.LruCache;
+
+/**
+ * Finished summaries by url. Recently used ones are kept in memory, evicting the least
+ * recently used once their estimated size passes MAX_BYTES; the rest are read back from
+ * the SummaryStore. Thread-safe.
+ */
+final class ResultCache {
+    private static final int MAX_BYTES = 256 * 1024;
+    private final SummaryStore store;
+    private final LruCache<String, ArticleSummary> memory = new LruCache<String, ArticleSummary>(MAX_BYTES) {
+        @Override
+        protected int sizeOf(String url, ArticleSummary summary) {
+            return summary.estimatedBytes();
+        }
+    };
+
+    ResultCache(SummaryStore store){
+        this.store = store;
+    }
+
+    /**
+     * Looks a url up in memory and then on disk. Call off the main thread.
+     * @param url address of an article
+     * @return the summary made the last time the article was ranked, or null
+     */
+    ArticleSummary get(String url){
+        ArticleSummary summary = memory.get(url);
+        if(summary == null){
+            summary = store.find(url);
+            if(summary != null)
+                memory.put(url, summary);
+        }
+        return summary;
+    }
+
+    /**
+     * Keeps a summary in memory right away; it only becomes durable once save is called
+     * @param summary a successful summary
+     */
+    void put(ArticleSummary summary){
+        memory.put(summary.getUrl(), summary);
+    }
+
+    /**
+     * Writes a summary to the store. Call off the main thread.
+     * @param summary a successful summary
+     */
+    void save(ArticleSummary summary){
+        store.save(summary);
+    }
+}
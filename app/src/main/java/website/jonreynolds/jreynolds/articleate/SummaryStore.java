@@ -0,0 +1,191 @@
+package website.jonreynolds.jreynolds.articleate;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * The summaries Articleate has made, one row per url, newest first. Saving a url again
+ * replaces its row and makes it the newest. Rows past the newest MAX_SUMMARIES are deleted
+ * every TRIM_INTERVAL saves rather than on every launch; reads never return them anyway.
+ */
+final class SummaryStore extends SQLiteOpenHelper {
+    private static final String TAG = "SummaryStore";
+    //Number of summaries kept and shown in the MainActivity
+    static final int MAX_SUMMARIES = 20;
+    private static final int TRIM_INTERVAL = 16;
+    private static final String DATABASE_NAME = "summaries.db";
+    private static final int DATABASE_VERSION = 1;
+    private static final String TABLE = "summaries";
+    //The append-only text file summaries were kept in before, imported once
+    private static final String LEGACY_FILE = "summaries.txt";
+    private static final String[] COLUMNS = {"url", "headline", "author", "summary", "keywords", "content_hash", "saved_at"};
+
+    private static SummaryStore instance;
+    private final Context context;
+
+    private SummaryStore(Context context){
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this.context = context;
+    }
+
+    /**
+     * @return the store shared by every activity and thread of the app
+     */
+    static synchronized SummaryStore get(Context context){
+        if(instance == null)
+            instance = new SummaryStore(context.getApplicationContext());
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db){
+        //Row ids only grow, so ordering by them is newest first without another index
+        db.execSQL("CREATE TABLE " + TABLE + " ("
+                + "_id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "url TEXT NOT NULL UNIQUE, "
+                + "headline TEXT, "
+                + "author TEXT, "
+                + "summary TEXT, "
+                + "keywords TEXT, "
+                + "content_hash INTEGER NOT NULL, "
+                + "saved_at INTEGER NOT NULL)");
+        importLegacyFile(db);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion){
+        //Version 1 is the only schema so far
+    }
+
+    /**
+     * Saves a summary as the newest one, replacing any earlier summary of the same url
+     * @param summary a successful summary
+     */
+    void save(ArticleSummary summary){
+        SQLiteDatabase db = getWritableDatabase();
+        long id = db.insertWithOnConflict(TABLE, null, toValues(summary), SQLiteDatabase.CONFLICT_REPLACE);
+        if(id > 0 && id % TRIM_INTERVAL == 0)
+            trim(db);
+    }
+
+    /**
+     * @param offset number of newer summaries to skip
+     * @param limit most summaries to return
+     * @return saved summaries, newest first
+     */
+    ArrayList<ArticleSummary> newest(int offset, int limit){
+        int end = Math.min(offset + limit, MAX_SUMMARIES);
+        ArrayList<ArticleSummary> result = new ArrayList<ArticleSummary>();
+        if(offset >= end)
+            return result;
+        Cursor cursor = getReadableDatabase().query(TABLE, COLUMNS, null, null, null, null,
+                "_id DESC", offset + "," + (end - offset));
+        try {
+            while(cursor.moveToNext()){
+                result.add(fromCursor(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        return result;
+    }
+
+    /**
+     * @param url address of an article
+     * @return the saved summary of that url, or null
+     */
+    ArticleSummary find(String url){
+        Cursor cursor = getReadableDatabase().query(TABLE, COLUMNS, "url = ?", new String[]{url}, null, null, null);
+        try {
+            return cursor.moveToFirst() ? fromCursor(cursor) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static ArticleSummary fromCursor(Cursor cursor){
+        String keywords = cursor.getString(4);
+        return new ArticleSummary(cursor.getString(0), nonNull(cursor.getString(1)), nonNull(cursor.getString(2)),
+                nonNull(cursor.getString(3)), keywords == null || keywords.isEmpty() ? new String[0] : keywords.split("\n"),
+                cursor.getLong(5), cursor.getLong(6));
+    }
+
+    private static String nonNull(String s){
+        return s == null ? "" : s;
+    }
+
+    /**
+     * Deletes everything older than the newest MAX_SUMMARIES summaries
+     */
+    private static void trim(SQLiteDatabase db){
+        db.execSQL("DELETE FROM " + TABLE + " WHERE _id NOT IN (SELECT _id FROM " + TABLE
+                + " ORDER BY _id DESC LIMIT " + MAX_SUMMARIES + ")");
+    }
+
+    private static ContentValues toValues(ArticleSummary summary){
+        ContentValues values = new ContentValues();
+        values.put("url", summary.getUrl());
+        values.put("headline", summary.getHeadline());
+        values.put("author", summary.getAuthor());
+        values.put("summary", summary.getSummary());
+        StringBuilder keywords = new StringBuilder();
+        for(String keyword: summary.getKeywords()){
+            if(keywords.length() > 0)
+                keywords.append('\n');
+            keywords.append(keyword);
+        }
+        values.put("keywords", keywords.toString());
+        values.put("content_hash", summary.getContentHash());
+        values.put("saved_at", summary.getSavedAt());
+        return values;
+    }
+
+    /**
+     * Copies the newest summaries of the old four-lines-per-summary text file into a new
+     * database, oldest first so that they keep their order, and deletes the file
+     */
+    private void importLegacyFile(SQLiteDatabase db){
+        File legacy = new File(context.getCacheDir(), LEGACY_FILE);
+        if(!legacy.exists())
+            return;
+        ArrayList<String[]> records = new ArrayList<String[]>();
+        try {
+            BufferedReader reader = new BufferedReader(new FileReader(legacy));
+            try {
+                String[] record = new String[4];
+                int line = 0;
+                String currentLine;
+                while((currentLine = reader.readLine()) != null){
+                    record[line++] = currentLine;
+                    if(line == record.length){
+                        records.add(record);
+                        record = new String[4];
+                        line = 0;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Couldn't import " + LEGACY_FILE, e);
+        }
+        for(int i = Math.max(0, records.size() - MAX_SUMMARIES); i < records.size(); i++){
+            String[] record = records.get(i);
+            //Lines are headline, summary, author and url
+            db.insertWithOnConflict(TABLE, null, toValues(new ArticleSummary(record[3], record[0], record[2], record[1], new String[0])),
+                    SQLiteDatabase.CONFLICT_REPLACE);
+        }
+        legacy.delete();
+        new File(context.getCacheDir(), "myTempFile.txt").delete();
+    }
+}
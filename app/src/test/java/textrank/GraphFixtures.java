@@ -0,0 +1,72 @@
+package textrank;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Fixed articles and helpers shared by the sentence graph tests.
+ */
+final class GraphFixtures {
+
+    private static final String[] WORDS = ("the city council voted on a new budget for schools and roads while "
+            + "residents asked about taxes parks water bridges teachers buses and the mayor said that the plan "
+            + "would cut costs over five years").split(" ");
+
+    /**
+     * Articles of different sizes, from no sentence at all to enough sentences that the
+     * parallel builder splits them into many row blocks
+     */
+    static final String[] ARTICLES = {
+            "",
+            "A single sentence stands alone.",
+            "Rain fell on the city. The city flooded overnight.",
+            "The council approved the budget on Tuesday. The budget adds money for schools and roads. "
+                    + "Teachers welcomed the money for schools. Critics said the roads plan was too small. "
+                    + "The mayor will sign the budget next week. Nothing else happened.",
+            "Solar panels now cover the old factory roof. The factory once made steel for bridges. "
+                    + "Its owners sold the site to a power company in 2014. The company installed the panels "
+                    + "over two summers. Neighbors say the roof is quieter than the steel works ever were. "
+                    + "Power from the roof reaches four thousand homes. The company plans a second roof nearby.",
+            generatedArticle(120, 7),
+    };
+
+    private GraphFixtures() {
+    }
+
+    /**
+     * @return every similarity the app offers
+     */
+    static SentenceSimilarity[] similarities() {
+        return new SentenceSimilarity[]{new OverlapSimilarity(false), new OverlapSimilarity(true),
+                new Bm25Similarity(), new TfIdfCosineSimilarity()};
+    }
+
+    /**
+     * Checks that two graphs have the same vertices, neighbor lists and weights, exactly
+     */
+    static void assertSameGraph(String message, CsrGraph expected, CsrGraph actual) {
+        assertEquals(message + ": vertices", expected.vertexCount, actual.vertexCount);
+        assertArrayEquals(message + ": offsets", expected.offsets, actual.offsets);
+        assertArrayEquals(message + ": neighbors", expected.neighbors, actual.neighbors);
+        assertArrayEquals(message + ": weights", expected.weights, actual.weights, 0.0);
+        assertArrayEquals(message + ": weighted degrees", expected.outWeights, actual.outWeights, 0.0);
+    }
+
+    /**
+     * @return a long article of sentences drawn from a small vocabulary, the same for a seed
+     */
+    static String generatedArticle(int sentences, long seed) {
+        Random random = new Random(seed);
+        StringBuilder article = new StringBuilder();
+        for (int s = 0; s < sentences; s++) {
+            int words = 4 + random.nextInt(10);
+            for (int w = 0; w < words; w++) {
+                String word = WORDS[random.nextInt(WORDS.length)];
+                article.append(w == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word);
+                article.append(w + 1 < words ? " " : ". ");
+            }
+        }
+        return article.toString().trim();
+    }
+}
@@ -0,0 +1,68 @@
+package textrank;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the graph an IncrementalTextRank grows paragraph by paragraph is exactly the
+ * graph a batch build gives for the same sentences, whatever rankings happened in between.
+ */
+public class IncrementalTextRankTest {
+
+    @Test
+    public void grownGraphEqualsBatchGraph() throws Exception {
+        TextRank tr = new TextRank(TestModels.load());
+        ArrayList<String> paragraphs = paragraphs();
+        for (SentenceSimilarity similarity : GraphFixtures.similarities()) {
+            tr.setSimilarity(similarity);
+            for (int count = 1; count <= paragraphs.size(); count += 3) {
+                IncrementalTextRank stream = tr.incremental();
+                for (int p = 0; p < count; p++) {
+                    stream.addParagraph(paragraphs.get(p));
+                    //Rank after some paragraphs only, so edges are added both one and several sentences at a time
+                    if (p % 2 == 0) {
+                        stream.summarize(3, 500);
+                    }
+                }
+                CsrGraph grown = stream.sentenceGraph();
+                AnalyzedText text = stream.toAnalyzedText();
+                SentenceSimilarity.Scorer scorer = similarity.prepare(text.toSentenceTerms());
+                String message = similarity.getClass().getSimpleName() + " after " + count + " paragraphs";
+                assertEquals(message, text.getSentenceCount(), grown.vertexCount);
+                GraphFixtures.assertSameGraph(message, PairwiseGraphBuilder.build(text.getSentenceCount(), scorer), grown);
+            }
+        }
+    }
+
+    @Test
+    public void graphIsCurrentAfterLastParagraph() throws Exception {
+        TextRank tr = new TextRank(TestModels.load());
+        tr.setSimilarity(new Bm25Similarity());
+        IncrementalTextRank stream = tr.incremental();
+        for (String paragraph : paragraphs()) {
+            stream.addParagraph(paragraph);
+            stream.topSentence();
+        }
+        //The last ranking rescored every edge with the statistics of the whole article
+        CsrGraph grown = stream.sentenceGraph();
+        AnalyzedText text = stream.toAnalyzedText();
+        GraphFixtures.assertSameGraph("final", PairwiseGraphBuilder.build(text.getSentenceCount(),
+                new Bm25Similarity().prepare(text.toSentenceTerms())), grown);
+    }
+
+    private static ArrayList<String> paragraphs() {
+        ArrayList<String> paragraphs = new ArrayList<String>();
+        for (String article : GraphFixtures.ARTICLES) {
+            if (!article.isEmpty()) {
+                paragraphs.add(article);
+            }
+        }
+        for (int p = 0; p < 8; p++) {
+            paragraphs.add(GraphFixtures.generatedArticle(1 + p % 4, 100 + p));
+        }
+        return paragraphs;
+    }
+}
@@ -0,0 +1,40 @@
+package textrank;
+
+import org.junit.Test;
+
+/**
+ * Checks that the inverted-index build, which only scores sentence pairs sharing a term,
+ * gives exactly the graph of scoring all pairs.
+ */
+public class InvertedIndexGraphBuilderTest {
+
+    @Test
+    public void sparseBuildEqualsAllPairsBuild() throws Exception {
+        TextRank tr = new TextRank(TestModels.load());
+        for (String article : GraphFixtures.ARTICLES) {
+            AnalyzedText text = tr.analyze(article);
+            SentenceTerms terms = text.toSentenceTerms();
+            for (SentenceSimilarity similarity : GraphFixtures.similarities()) {
+                SentenceSimilarity.Scorer scorer = similarity.prepare(terms);
+                String message = similarity.getClass().getSimpleName() + " over " + terms.getSentenceCount() + " sentences";
+                GraphFixtures.assertSameGraph(message, PairwiseGraphBuilder.build(terms.getSentenceCount(), scorer),
+                        InvertedIndexGraphBuilder.build(terms.getSentenceCount(), text.getVocabularySize(), scorer));
+            }
+        }
+    }
+
+    @Test
+    public void addingSentencesOneAtATimeEqualsOneBuild() throws Exception {
+        TextRank tr = new TextRank(TestModels.load());
+        AnalyzedText text = tr.analyze(GraphFixtures.generatedArticle(80, 13));
+        SentenceTerms terms = text.toSentenceTerms();
+        SentenceSimilarity.Scorer scorer = new OverlapSimilarity(true).prepare(terms);
+        InvertedIndexGraphBuilder index = new InvertedIndexGraphBuilder();
+        CsrGraph.Builder builder = new CsrGraph.Builder(0);
+        for (int j = 0; j < terms.getSentenceCount(); j++) {
+            builder.setVertexCount(j + 1);
+            index.addSentence(j, scorer, builder);
+        }
+        GraphFixtures.assertSameGraph("one at a time", PairwiseGraphBuilder.build(terms.getSentenceCount(), scorer), builder.build());
+    }
+}
@@ -0,0 +1,47 @@
+package textrank;
+
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Checks that splitting the all-pairs build into row blocks on an executor gives exactly
+ * the graph of the serial build.
+ */
+public class PairwiseGraphBuilderTest {
+
+    @Test
+    public void executorBuildEqualsSerialBuild() throws Exception {
+        TextRank tr = new TextRank(TestModels.load());
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (String article : GraphFixtures.ARTICLES) {
+                SentenceTerms terms = tr.analyze(article).toSentenceTerms();
+                for (SentenceSimilarity similarity : GraphFixtures.similarities()) {
+                    SentenceSimilarity.Scorer scorer = similarity.prepare(terms);
+                    String message = similarity.getClass().getSimpleName() + " over " + terms.getSentenceCount() + " sentences";
+                    CsrGraph serial = PairwiseGraphBuilder.build(terms.getSentenceCount(), scorer);
+                    GraphFixtures.assertSameGraph(message, serial,
+                            PairwiseGraphBuilder.build(terms.getSentenceCount(), scorer, executor));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void singleThreadExecutorEqualsSerialBuild() throws Exception {
+        TextRank tr = new TextRank(TestModels.load());
+        SentenceTerms terms = tr.analyze(GraphFixtures.generatedArticle(60, 11)).toSentenceTerms();
+        SentenceSimilarity.Scorer scorer = new OverlapSimilarity(false).prepare(terms);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            GraphFixtures.assertSameGraph("single thread", PairwiseGraphBuilder.build(terms.getSentenceCount(), scorer),
+                    PairwiseGraphBuilder.build(terms.getSentenceCount(), scorer, executor));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package textrank;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ * The app ships no part-of-speech model, so the filter is covered with a stub tagger that
+ * tags "record" as a verb after "studios" and every other word as a noun.
+ */
+public class PartOfSpeechFilterTest {
+    private static final String TEXT = "Studios record albums. The record label signs studios. "
+            + "Albums need a record label.";
+
+    private static final TextRankModels.PosTagger STUB_TAGGER = new TextRankModels.PosTagger() {
+        @Override
+        public String[] tag(String[] words) {
+            String[] tags = new String[words.length];
+            for (int i = 0; i < words.length; i++) {
+                boolean verb = words[i].equals("record") && i > 0 && words[i - 1].equalsIgnoreCase("studios");
+                tags[i] = verb ? "VBP" : Character.isLetterOrDigit(words[i].charAt(0)) ? "NN" : ".";
+            }
+            return tags;
+        }
+    };
+
+    @Test
+    public void verbOccurrencesDontJoinPhrases() throws Exception {
+        TextRank tr = new TextRank(TestModels.load(STUB_TAGGER));
+        tr.setPartOfSpeechFilter(true);
+        ArrayList<String> phrases = phrases(tr.keyphraseExtraction(tr.analyze(TEXT), Integer.MAX_VALUE));
+        //"record" is still ranked, as a noun, and joins "label" where it is one
+        assertTrue(phrases.toString(), phrases.contains("record label"));
+        for (String phrase : phrases) {
+            assertFalse(phrases.toString(), phrase.contains("studios record") || phrase.contains("record albums"));
+        }
+        assertTrue(phrases.toString(), phrases.contains("studios"));
+        assertTrue(phrases.toString(), phrases.contains("albums"));
+    }
+
+    @Test
+    public void withoutFilterEveryOccurrenceJoins() throws Exception {
+        TextRank tr = new TextRank(TestModels.load(STUB_TAGGER));
+        ArrayList<String> phrases = phrases(tr.keyphraseExtraction(tr.analyze(TEXT), Integer.MAX_VALUE));
+        assertTrue(phrases.toString(), phrases.contains("studios record albums"));
+    }
+
+    private static ArrayList<String> phrases(ArrayList<Keyphrase> keyphrases) {
+        ArrayList<String> result = new ArrayList<String>();
+        for (Keyphrase keyphrase : keyphrases) {
+            result.add(keyphrase.getPhrase());
+        }
+        return result;
+    }
+}
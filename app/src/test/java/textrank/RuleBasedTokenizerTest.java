@@ -0,0 +1,97 @@
+package textrank;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks RuleBasedTokenizer against the regex-strip, lowercase and whitespace-split path it
+ * replaces.
+ */
+public class RuleBasedTokenizerTest {
+    private static final Pattern PUNCTUATION = Pattern.compile("\\p{P}");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    @Test
+    public void matchesRegexPathOnPunctuation() {
+        assertSameTokens("Hello, world! Isn't this (really) great?");
+        assertSameTokens("The U.S. economy grew 3.5% in Q2; analysts: \"surprising\".");
+        assertSameTokens("Wait... what?! [citation needed] {braces} #tag @user under_score");
+        assertSameTokens("  Leading and trailing whitespace\tand\ttabs\nand newlines  ");
+        assertSameTokens(". , ; : ! ?");
+    }
+
+    @Test
+    public void matchesRegexPathOnQuotes() {
+        assertSameTokens("\u201cSmart quotes\u201d and \u2018single ones\u2019 don\u2019t split");
+        assertSameTokens("\u00abGuillemets\u00bb and \u201eLow quotes\u201c and 'plain' \"double\"");
+    }
+
+    @Test
+    public void matchesRegexPathOnDashes() {
+        assertSameTokens("A well-known state-of-the-art result");
+        assertSameTokens("Pages 10\u201312 \u2014 an em dash \u2013 and an en dash");
+        assertSameTokens("Minus \u2212 sign and hyphen \u2010 and a - spaced dash");
+    }
+
+    @Test
+    public void matchesRegexPathOnAccents() {
+        assertSameTokens("Caf\u00e9 na\u00efve r\u00e9sum\u00e9 \u00c9COLE Stra\u00dfe \u00c5ngstr\u00f6m");
+        //Decomposed accents are combining marks, not punctuation, so they stay in the token
+        assertSameTokens("Cafe\u0301 E\u0301cole");
+        assertSameTokens("\u00dcber M\u00fcnchen, Z\u00fcrich und \u00d6sterreich");
+    }
+
+    @Test
+    public void foldsCasePerChar() {
+        //The differences from String.toLowerCase documented on TokenizerMode.RULE_BASED: a Greek
+        //word ending in a capital sigma, and a capital I with a dot above
+        assertArrayEquals(new String[]{"\u03c3\u03b1\u03c3"}, ruleBased("\u03a3\u0391\u03a3"));
+        assertArrayEquals(new String[]{"\u03c3\u03b1\u03c2"}, regexPath("\u03a3\u0391\u03a3"));
+        assertArrayEquals(new String[]{"istanbul"}, ruleBased("\u0130stanbul"));
+        assertArrayEquals(new String[]{"i\u0307stanbul"}, regexPath("\u0130stanbul"));
+    }
+
+    @Test
+    public void reusesBufferAcrossSentences() {
+        RuleBasedTokenizer tokenizer = new RuleBasedTokenizer();
+        TokenDictionary dictionary = new TokenDictionary();
+        StringBuilder longToken = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            longToken.append((char) ('a' + i % 26));
+        }
+        String[] sentences = {"short one", longToken + " " + longToken, "short two", "many many many many many "
+                + "many many many many many many many many many many many many many many many many many many many "
+                + "many many many many many many many many many many many many many many many many many many many "
+                + "many many many many many many many many many many many many many many many many many many many"};
+        for (String sentence : sentences) {
+            assertArrayEquals(sentence, regexPath(sentence), dictionary.tokens(tokenizer.intern(sentence, dictionary)));
+        }
+    }
+
+    private static void assertSameTokens(String sentence) {
+        assertArrayEquals(sentence, regexPath(sentence), ruleBased(sentence));
+    }
+
+    private static String[] ruleBased(String sentence) {
+        TokenDictionary dictionary = new TokenDictionary();
+        return dictionary.tokens(new RuleBasedTokenizer().intern(sentence, dictionary));
+    }
+
+    /**
+     * TextRank.tokenize with a whitespace tokenizer in place of the OpenNLP one
+     */
+    private static String[] regexPath(String sentence) {
+        String stripped = PUNCTUATION.matcher(sentence).replaceAll("").toLowerCase();
+        ArrayList<String> tokens = new ArrayList<String>();
+        for (String token : WHITESPACE.split(stripped)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens.toArray(new String[tokens.size()]);
+    }
+}
@@ -0,0 +1,103 @@
+package textrank;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks StopwordTrie membership, before and after the round trip through the binary form
+ * the build writes into res/raw.
+ */
+public class StopwordTrieTest {
+    private static final List<String> WORDS = Arrays.asList("a", "an", "and", "the", "there", "their",
+            "is", "it", "its", "\u00fcber", "don't", "the");
+
+    @Test
+    public void containsListedWords() throws Exception {
+        for (StopwordTrie trie : tries()) {
+            for (String word : WORDS) {
+                assertTrue(word, trie.contains(word));
+                char[] chars = ("[" + word + "]").toCharArray();
+                assertTrue(word, trie.contains(chars, 1, chars.length - 1));
+            }
+            assertEquals(11, trie.size());
+        }
+    }
+
+    @Test
+    public void rejectsOtherWordsAndPrefixes() throws Exception {
+        //Prefixes of listed words, longer words that start with one and other case
+        String[] absent = {"", "th", "thei", "ther", "i", "\u00fc", "\u00fcbe", "don", "theirs", "ands", "b", "The", "AND"};
+        for (StopwordTrie trie : tries()) {
+            for (String word : absent) {
+                assertFalse(word, trie.contains(word));
+                char[] chars = ("x" + word + "x").toCharArray();
+                assertFalse(word, trie.contains(chars, 1, chars.length - 1));
+            }
+        }
+    }
+
+    @Test
+    public void matchesAppStopwordLists() throws Exception {
+        for (String name : new String[]{"stopwords.txt", "extended_stopwords.txt"}) {
+            File list = new File("src/main/stopwords", name);
+            HashSet<String> words = new HashSet<String>();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(list), "UTF-8"));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    words.add(line);
+                }
+            } finally {
+                reader.close();
+            }
+            //Compiled and read back as generateStopwordTries and the app do
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            StopwordTrie.readWordList(new FileInputStream(list)).write(out);
+            StopwordTrie trie = StopwordTrie.read(new ByteArrayInputStream(out.toByteArray()));
+            assertEquals(name, words.size(), trie.size());
+            for (String word : words) {
+                assertTrue(name + ": " + word, trie.contains(word));
+                for (int end = 0; end < word.length(); end++) {
+                    String prefix = word.substring(0, end);
+                    assertEquals(name + ": " + prefix, words.contains(prefix), trie.contains(prefix));
+                }
+                assertEquals(name + ": " + word + "s", words.contains(word + "s"), trie.contains(word + "s"));
+            }
+        }
+    }
+
+    @Test
+    public void readsWordListOneWordPerLine() throws Exception {
+        StopwordTrie trie = StopwordTrie.readWordList(new ByteArrayInputStream("of\nto\nin\n".getBytes("UTF-8")));
+        assertEquals(3, trie.size());
+        assertTrue(trie.contains("to"));
+        assertFalse(trie.contains("t"));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherStreams() throws Exception {
+        StopwordTrie.read(new ByteArrayInputStream("not a trie at all".getBytes("UTF-8")));
+    }
+
+    /**
+     * @return a trie built from WORDS, and the same trie written and read back
+     */
+    private static StopwordTrie[] tries() throws IOException {
+        StopwordTrie built = StopwordTrie.build(WORDS);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        built.write(out);
+        return new StopwordTrie[]{built, StopwordTrie.read(new ByteArrayInputStream(out.toByteArray()))};
+    }
+}
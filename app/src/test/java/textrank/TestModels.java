@@ -0,0 +1,40 @@
+package textrank;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * Loads the app's sentence and tokenizer models and stopword lists for JVM tests, which run
+ * from the app module's directory.
+ */
+final class TestModels {
+
+    private TestModels() {
+    }
+
+    /**
+     * @return the models the app uses, without a part-of-speech model
+     */
+    static TextRankModels load() throws IOException {
+        return new TextRankModels(open("res/raw/en_sent.bin"), open("res/raw/en_token.bin"),
+                stopwords("stopwords.txt"), stopwords("extended_stopwords.txt"), (TextRankModels.ModelSource) null);
+    }
+
+    /**
+     * @param tagger part-of-speech tagger shared by every thread
+     * @return the models the app uses, with the given tagger
+     */
+    static TextRankModels load(TextRankModels.PosTagger tagger) throws IOException {
+        return new TextRankModels(open("res/raw/en_sent.bin"), open("res/raw/en_token.bin"),
+                stopwords("stopwords.txt"), stopwords("extended_stopwords.txt"), tagger);
+    }
+
+    private static StopwordTrie stopwords(String name) throws IOException {
+        return StopwordTrie.readWordList(open("stopwords/" + name));
+    }
+
+    private static FileInputStream open(String path) throws IOException {
+        return new FileInputStream(new File("src/main", path));
+    }
+}
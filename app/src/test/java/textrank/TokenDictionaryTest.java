@@ -0,0 +1,69 @@
+package textrank;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that both intern methods hand out the same ids while the table grows.
+ */
+public class TokenDictionaryTest {
+
+    @Test
+    public void charSpanAndStringInternAgreeAcrossRehashes() {
+        TokenDictionary dictionary = new TokenDictionary();
+        HashMap<String, Integer> expected = new HashMap<String, Integer>();
+        Random random = new Random(42);
+        //Enough distinct tokens to grow the table from 64 slots several times over
+        for (int i = 0; i < 20000; i++) {
+            String token = randomToken(random);
+            int id;
+            if (random.nextBoolean()) {
+                id = dictionary.intern(token);
+            } else {
+                char[] chars = ("<" + token + ">").toCharArray();
+                id = dictionary.intern(chars, 1, chars.length - 1);
+            }
+            Integer previous = expected.get(token);
+            if (previous == null) {
+                assertEquals(token, expected.size(), id);
+                expected.put(token, id);
+            } else {
+                assertEquals(token, previous.intValue(), id);
+            }
+        }
+        assertEquals(expected.size(), dictionary.size());
+        for (String token : expected.keySet()) {
+            int id = expected.get(token);
+            char[] chars = token.toCharArray();
+            assertEquals(token, id, dictionary.intern(token));
+            assertEquals(token, id, dictionary.intern(chars, 0, chars.length));
+            assertEquals(token, dictionary.token(id));
+        }
+        assertEquals(expected.size(), dictionary.size());
+    }
+
+    @Test
+    public void separatesTokensWithEqualHashes() {
+        TokenDictionary dictionary = new TokenDictionary();
+        //"Aa" and "BB" have the same String.hashCode
+        char[] chars = "AaBB".toCharArray();
+        assertEquals(0, dictionary.intern("Aa"));
+        assertEquals(1, dictionary.intern(chars, 2, 4));
+        assertEquals(0, dictionary.intern(chars, 0, 2));
+        assertEquals(1, dictionary.intern("BB"));
+        assertEquals(2, dictionary.intern(new char[0], 0, 0));
+        assertEquals(2, dictionary.intern(""));
+    }
+
+    private static String randomToken(Random random) {
+        char[] chars = new char[1 + random.nextInt(4)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(12));
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,215 @@
+package website.jonreynolds.jreynolds.articleate;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks ExtractionEngine against the select() cascades ArticleActivity used before the
+ * engine, with and without the per-host rule cache.
+ */
+public class ExtractionEngineTest {
+    private static final String HOST = "news.example.com";
+
+    private static final String[] PAGES = {
+            //Article inside <main>, with a pseudo article before it
+            "<html><body><div class='article-teaser'><p>Teaser</p></div>"
+                    + "<main><article><h1 class='Headline'>Main story</h1>"
+                    + "<span class='byline'>By Ann Smith</span><p>Body.</p></article></main></body></html>",
+            //Articles outside <main>; the author is only named outside the article
+            "<html><body><main><p>Nav</p></main><article><h2 class='post-title'>Second</h2><p>Body.</p></article>"
+                    + "<article><p>Other</p></article><footer class='author-box'>Bob Jones</footer></body></html>",
+            //No article tag, a class containing "article" in capitals and nested byline classes
+            "<html><body><div class='page-title'>Site</div><div class='ArticleBody'>"
+                    + "<div class='meta'><span class='story-author'>C. Lee</span><span class='byline-date'>Today</span></div>"
+                    + "<p>Body.</p></div></body></html>",
+            //Only a story class, with no author and a headline outside the story
+            "<html><body><h1 class='headline'>Fourth</h1><section class='story'><p>Body.</p></section></body></html>",
+            //Nothing that looks like an article
+            "<html><body><div class='sidebar'><p class='byline'>Nobody</p></div></body></html>",
+    };
+
+    @Test
+    public void matchesCascadeWithoutCache() throws Exception {
+        ExtractionEngine engine = new ExtractionEngine(ExtractionEngine.defaultRules(), newCacheFile());
+        for(String html: PAGES){
+            Document document = Jsoup.parse(html);
+            assertSameElements(html, cascade(document), engine.extract(document, null));
+        }
+    }
+
+    @Test
+    public void matchesCascadeWithColdAndWarmCache() throws Exception {
+        for(String html: PAGES){
+            File cacheFile = newCacheFile();
+            Document document = Jsoup.parse(html);
+            Element[] expected = cascade(document);
+            assertSameElements(html, expected, new ExtractionEngine(ExtractionEngine.defaultRules(), cacheFile).extract(document, HOST));
+            //A new engine reads the rules the first one stored
+            ExtractionEngine warm = new ExtractionEngine(ExtractionEngine.defaultRules(), cacheFile);
+            assertSameElements(html, expected, warm.extract(document, HOST));
+            assertSameElements(html, expected, warm.extract(document, HOST));
+        }
+    }
+
+    @Test
+    public void cachesUnmatchedFields() throws Exception {
+        File cacheFile = newCacheFile();
+        Document document = Jsoup.parse(PAGES[3]);
+        new ExtractionEngine(ExtractionEngine.defaultRules(), cacheFile).extract(document, HOST);
+        Properties cache = readCache(cacheFile);
+        assertEquals("[class*=story]", cache.getProperty(HOST + "/article"));
+        assertEquals("!none", cache.getProperty(HOST + "/author"));
+        assertEquals("[class*=headline]", cache.getProperty(HOST + "/headline"));
+    }
+
+    @Test
+    public void findsUnmatchedFieldsOnLaterPagesOfHost() throws Exception {
+        //Both pages use <main><article>; only the second names its author and headline
+        String withoutByline = "<html><body><main><article><p>Body.</p></article></main></body></html>";
+        String withByline = "<html><body><main><article><h1 class='headline'>Later</h1>"
+                + "<span class='byline'>By Ann</span><p>Body.</p></article></main></body></html>";
+        File cacheFile = newCacheFile();
+        ExtractionEngine engine = new ExtractionEngine(ExtractionEngine.defaultRules(), cacheFile);
+
+        Document first = Jsoup.parse(withoutByline);
+        assertSameElements(withoutByline, cascade(first), engine.extract(first, HOST));
+        assertEquals("!none", readCache(cacheFile).getProperty(HOST + "/author"));
+        assertEquals("!none", readCache(cacheFile).getProperty(HOST + "/headline"));
+
+        Document second = Jsoup.parse(withByline);
+        Element[] expected = cascade(second);
+        assertNotNull(expected[1]);
+        assertSameElements(withByline, expected, engine.extract(second, HOST));
+        assertSameElements(withByline, expected, new ExtractionEngine(ExtractionEngine.defaultRules(), cacheFile).extract(second, HOST));
+        Properties cache = readCache(cacheFile);
+        assertEquals("article [class*=byline]", cache.getProperty(HOST + "/author"));
+        assertEquals("article [class*=headline]", cache.getProperty(HOST + "/headline"));
+
+        //A page without them again finds nothing, as the cascade would
+        Document third = Jsoup.parse(withoutByline);
+        assertSameElements(withoutByline, cascade(third), engine.extract(third, HOST));
+    }
+
+    @Test
+    public void matchesCascadeAcrossPagesOfHost() throws Exception {
+        //Every order of the sample pages on one host, so each page sees the others' cache entries
+        for(int start = 0; start < PAGES.length; start++){
+            File cacheFile = newCacheFile();
+            ExtractionEngine engine = new ExtractionEngine(ExtractionEngine.defaultRules(), cacheFile);
+            for(int i = 0; i < PAGES.length; i++){
+                String html = PAGES[(start + i) % PAGES.length];
+                Document document = Jsoup.parse(html);
+                Element[] expected = cascade(document);
+                ExtractionEngine.Result actual = engine.extract(document, HOST);
+                //A cached article rule is trusted while it matches, so only pages whose article
+                //the cascade agrees on are compared field by field
+                if(actual.article == expected[0])
+                    assertSameElements(html, expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void usesCachedArticleRuleWhenOtherFieldsAreUnknown() throws Exception {
+        //Only the article rule is cached, as an older cache file would have it
+        File cacheFile = newCacheFile();
+        Properties partial = new Properties();
+        partial.setProperty(HOST + "/article", "main article");
+        writeCache(cacheFile, partial);
+
+        Document document = Jsoup.parse(PAGES[0]);
+        ExtractionEngine engine = new ExtractionEngine(ExtractionEngine.defaultRules(), cacheFile);
+        assertSameElements(PAGES[0], cascade(document), engine.extract(document, HOST));
+        Properties cache = readCache(cacheFile);
+        assertEquals("article [class*=byline]", cache.getProperty(HOST + "/author"));
+        assertEquals("article [class*=headline]", cache.getProperty(HOST + "/headline"));
+    }
+
+    @Test
+    public void rerunsCascadeWhenCachedArticleRuleMisses() throws Exception {
+        File cacheFile = newCacheFile();
+        ExtractionEngine engine = new ExtractionEngine(ExtractionEngine.defaultRules(), cacheFile);
+        engine.extract(Jsoup.parse(PAGES[0]), HOST);
+        Document document = Jsoup.parse(PAGES[2]);
+        assertSameElements(PAGES[2], cascade(document), engine.extract(document, HOST));
+        assertEquals("[class*=article]", readCache(cacheFile).getProperty(HOST + "/article"));
+    }
+
+    /**
+     * The cascades of ArticleActivity before ExtractionEngine
+     * @return article, author and headline
+     */
+    private static Element[] cascade(Document document){
+        Element article = document.select("main").select("article").first();
+        if(article == null)
+            article = document.select("article").first();
+        if(article == null)
+            article = document.getElementsByAttributeValueContaining("class", "article").first();
+        if(article == null)
+            article = document.getElementsByAttributeValueContaining("class", "story").first();
+        if(article == null)
+            return new Element[3];
+
+        Element author = article.getElementsByAttributeValueContaining("class", "byline").first();
+        if(author == null)
+            author = article.getElementsByAttributeValueContaining("class", "author").first();
+        if(author == null)
+            author = document.getElementsByAttributeValueContaining("class", "byline").first();
+        if(author == null)
+            author = document.getElementsByAttributeValueContaining("class", "author").first();
+
+        Element headline = article.getElementsByAttributeValueContaining("class", "headline").first();
+        if(headline == null)
+            headline = article.getElementsByAttributeValueContaining("class", "title").first();
+        if(headline == null)
+            headline = document.getElementsByAttributeValueContaining("class", "headline").first();
+        if(headline == null)
+            headline = document.getElementsByAttributeValueContaining("class", "title").first();
+        return new Element[]{article, author, headline};
+    }
+
+    private static void assertSameElements(String page, Element[] expected, ExtractionEngine.Result actual){
+        assertSame("article of " + page, expected[0], actual.article);
+        assertSame("author of " + page, expected[1], actual.author);
+        assertSame("headline of " + page, expected[2], actual.headline);
+    }
+
+    private static File newCacheFile() throws IOException {
+        File file = File.createTempFile("extraction_rules", ".properties");
+        file.delete();
+        file.deleteOnExit();
+        return file;
+    }
+
+    private static Properties readCache(File cacheFile) throws IOException {
+        Properties cache = new Properties();
+        InputStream in = new FileInputStream(cacheFile);
+        try {
+            cache.load(in);
+        } finally {
+            in.close();
+        }
+        return cache;
+    }
+
+    private static void writeCache(File cacheFile, Properties cache) throws IOException {
+        OutputStream out = new FileOutputStream(cacheFile);
+        try {
+            cache.store(out, null);
+        } finally {
+            out.close();
+        }
+    }
+}